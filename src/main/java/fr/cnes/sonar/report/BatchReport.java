@@ -0,0 +1,303 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report;
+
+import fr.cnes.sonar.report.factory.ReportSnapshot;
+import fr.cnes.sonar.report.utils.StringManager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generate the reports of several projects in a single run so that they
+ * share the http connection pool and the response cache
+ * @author lequal
+ */
+public class BatchReport {
+
+    /**
+     * Pattern of a project's output folder: report's folder and project's key
+     */
+    private static final String PROJECT_FOLDER_PATTERN = "%s/%s";
+    /**
+     * Name of the summary file written in the report's folder
+     */
+    private static final String SUMMARY_FILENAME = "batch-summary.csv";
+    /**
+     * Header of the summary file
+     */
+    private static final String SUMMARY_HEADER = "project;status;duration (ms);message";
+    /**
+     * Pattern of a line of the summary file
+     */
+    private static final String SUMMARY_LINE = "%s;%s;%d;%s";
+    /**
+     * Characters of an error message which would break the summary's lines
+     */
+    private static final String SUMMARY_SEPARATORS = "[;\r\n]";
+    /**
+     * Status of a project whose report has been generated
+     */
+    private static final String SUCCESS = "OK";
+    /**
+     * Status of a project whose report could not be generated
+     */
+    private static final String FAILURE = "KO";
+    /**
+     * Message logged when a project's report failed
+     */
+    private static final String PROJECT_FAILURE_MESSAGE = "Report of %s failed: %s";
+    /**
+     * Message logged at the end of the batch
+     */
+    private static final String BATCH_SUMMARY_MESSAGE =
+            "Batch report: %d projects, %d failures in %d ms, summary written in %s";
+
+    /**
+     * Logger of this class
+     */
+    private static final Logger LOGGER = Logger.getLogger(BatchReport.class.getName());
+
+    /**
+     * Url of SonarQube
+     */
+    private final String url;
+    /**
+     * Token to authenticate to SonarQube
+     */
+    private final String token;
+    /**
+     * Author of the reports
+     */
+    private final String author;
+    /**
+     * Date of the reports
+     */
+    private final String date;
+    /**
+     * Folder containing one sub folder per project
+     */
+    private final String reportPath;
+    /**
+     * Template of docx reports
+     */
+    private final String reportTemplate;
+    /**
+     * Template of xlsx issues' lists
+     */
+    private final String issuesTemplate;
+    /**
+     * True to build reports from the previous ones
+     */
+    private final boolean incremental;
+
+    /**
+     * Complete constructor
+     * @param pUrl url of SonarQube
+     * @param pToken token to authenticate to SonarQube
+     * @param pAuthor author of the reports
+     * @param pDate date of the reports
+     * @param pReportPath folder where a sub folder is created for each project
+     * @param pReportTemplate template of docx reports
+     * @param pIssuesTemplate template of xlsx issues' lists
+     * @param pIncremental true to only request issues changed since the previous reports
+     */
+    public BatchReport(final String pUrl, final String pToken, final String pAuthor,
+                       final String pDate, final String pReportPath, final String pReportTemplate,
+                       final String pIssuesTemplate, final boolean pIncremental) {
+        this.url = pUrl;
+        this.token = pToken;
+        this.author = pAuthor;
+        this.date = pDate;
+        this.reportPath = pReportPath;
+        this.reportTemplate = pReportTemplate;
+        this.issuesTemplate = pIssuesTemplate;
+        this.incremental = pIncremental;
+    }
+
+    /**
+     * Generate the report of each project, a failure does not stop the others
+     * @param projects keys of the projects
+     * @param threads number of projects reported at the same time
+     * @return result of each project, in the same order as projects
+     * @throws IOException when writing the summary
+     */
+    public List<ProjectResult> run(final List<String> projects, final int threads)
+            throws IOException {
+        final long start = System.currentTimeMillis();
+        final List<ProjectResult> results = new ArrayList<>();
+        final List<Future<?>> futures = new ArrayList<>();
+
+        // submit all projects, results are filled by the tasks themselves
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for(String project : projects) {
+                final ProjectResult result = new ProjectResult(project);
+                results.add(result);
+                futures.add(executor.submit(() -> {
+                    final long projectStart = System.currentTimeMillis();
+                    try {
+                        ReportCommandLine.report(url, token, project, author, date,
+                                String.format(PROJECT_FOLDER_PATTERN, reportPath,
+                                        ReportSnapshot.toFileName(project)),
+                                reportTemplate, issuesTemplate, incremental);
+                    } finally {
+                        result.duration = System.currentTimeMillis() - projectStart;
+                    }
+                    return null;
+                }));
+            }
+            // collect failures
+            for(int i = 0; i < futures.size(); i++) {
+                waitFor(futures.get(i), results.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // write and log the summary
+        final File summary = new File(reportPath, SUMMARY_FILENAME);
+        writeSummary(results, summary);
+        int failures = 0;
+        for(ProjectResult result : results) {
+            if(!result.isSuccessful()) {
+                failures++;
+            }
+        }
+        LOGGER.info(String.format(BATCH_SUMMARY_MESSAGE, results.size(), failures,
+                System.currentTimeMillis() - start, summary.getPath()));
+
+        return results;
+    }
+
+    /**
+     * Wait for the end of a project's report and record its failure if any
+     * @param future task generating the report
+     * @param result result of the project
+     */
+    private static void waitFor(final Future<?> future, final ProjectResult result) {
+        Throwable error = null;
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        }
+        if(error != null) {
+            result.error = StringManager.describe(error);
+            LOGGER.log(Level.SEVERE, String.format(PROJECT_FAILURE_MESSAGE,
+                    result.project, result.error), error);
+        }
+    }
+
+    /**
+     * Write the result of each project in a csv file
+     * @param results results to write
+     * @param file summary file
+     * @throws IOException when writing the file
+     */
+    private static void writeSummary(final List<ProjectResult> results, final File file)
+            throws IOException {
+        final File folder = file.getAbsoluteFile().getParentFile();
+        if(!folder.mkdirs() && !folder.exists()) {
+            throw new IOException(String.format(ReportCommandLine.CNES_MKDIR_ERROR, folder));
+        }
+        try(PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.println(SUMMARY_HEADER);
+            for(ProjectResult result : results) {
+                writer.println(String.format(SUMMARY_LINE, result.project,
+                        result.isSuccessful() ? SUCCESS : FAILURE, result.duration,
+                        result.isSuccessful() ? StringManager.EMPTY
+                                : result.error.replaceAll(SUMMARY_SEPARATORS, StringManager.SPACE)));
+            }
+        }
+    }
+
+    /**
+     * Outcome of a project's report
+     */
+    public static class ProjectResult {
+        /**
+         * Key of the project
+         */
+        private final String project;
+        /**
+         * Time spent generating the report in milliseconds
+         */
+        private volatile long duration;
+        /**
+         * Message of the error which stopped the report, null on success
+         */
+        private String error;
+
+        /**
+         * Constructor of a result not yet known
+         * @param pProject key of the project
+         */
+        ProjectResult(final String pProject) {
+            this.project = pProject;
+        }
+
+        /**
+         * Getter for project
+         * @return key of the project
+         */
+        public String getProject() {
+            return project;
+        }
+
+        /**
+         * Getter for duration
+         * @return time spent generating the report in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Getter for error
+         * @return message of the error, null on success
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Tell whether the report has been generated
+         * @return true if there were no error
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+}
@@ -24,6 +24,9 @@ import fr.cnes.sonar.report.exporters.XmlExporter;
 import fr.cnes.sonar.report.exporters.docx.DocXExporter;
 import fr.cnes.sonar.report.exporters.xlsx.XlsXExporter;
 import fr.cnes.sonar.report.factory.ReportFactory;
+import fr.cnes.sonar.report.factory.ReportSnapshot;
+import fr.cnes.sonar.report.providers.ProjectProvider;
+import fr.cnes.sonar.report.providers.RequestManager;
 import fr.cnes.sonar.report.utils.Params;
 import fr.cnes.sonar.report.utils.ParamsFactory;
 import fr.cnes.sonar.report.utils.StringManager;
@@ -37,8 +40,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -79,6 +84,14 @@ public final class ReportCommandLine {
      */
     public static final String CNES_MKDIR_ERROR =
             "Impossible to create the following directory: %s";
+    /**
+     * Message logged to give http connection pool's statistics
+     */
+    private static final String POOL_STATISTICS_MESSAGE = "Http connection pool: %s";
+    /**
+     * Message logged with the statistics of the response cache
+     */
+    private static final String CACHE_STATISTICS_MESSAGE = "Response cache: %s";
     /**
      * Logger of this class
      */
@@ -99,6 +112,14 @@ public final class ReportCommandLine {
      * Name of the property to find the base of report location
      */
     public static final String REPORT_PATH = "report.path";
+    /**
+     * Separator of project keys given for a batch
+     */
+    private static final String PROJECTS_SEPARATOR = ",";
+    /**
+     * Message logged when a pattern matches no project
+     */
+    private static final String NO_PROJECT_MESSAGE = "No project matches %s";
     /**
      * Help message to display when a user misused this program
      */
@@ -106,11 +127,16 @@ public final class ReportCommandLine {
             "Here are the list of parameters you can use:\n" +
             "  > --sonar.url [mandatory]\n" +
             "  > --sonar.token\n" +
-            "  > --sonar.project.id [mandatory]\n" +
+            "  > --sonar.project.id [mandatory] (keys separated by ',' or a pattern with '*'" +
+            " to report several projects)\n" +
             "  > --report.author\n" +
             "  > --report.date\n" +
             "  > --report.path\n" +
             "  > --report.conf [yes|no]\n" +
+            "  > --report.incremental [yes|no]\n" +
+            "  > --report.cache [yes|no] (no to always contact SonarQube)\n" +
+            "  > --report.cache.directory\n" +
+            "  > --report.batch.threads\n" +
             "  > --report.locale [fr_FR|en_US]\n" +
             "  > --report.template\n" +
             "  > --issues.template\n" +
@@ -144,9 +170,23 @@ public final class ReportCommandLine {
             final String reportPath = params.get(REPORT_PATH);
             final String reportTemplate = params.get(StringManager.REPORT_TEMPLATE);
             final String issuesTemplate = params.get(StringManager.ISSUES_TEMPLATE);
+            final boolean incremental = StringManager.YES.equals(params.get(StringManager.REPORT_INCREMENTAL));
 
-            // generate report
-            report(url, token, project, author, date, reportPath, reportTemplate, issuesTemplate);
+            // responses which rarely change are kept on disk between two runs, unless disabled
+            RequestManager.getInstance().configureCache(
+                    StringManager.YES.equals(params.get(StringManager.REPORT_CACHE)),
+                    params.get(StringManager.REPORT_CACHE_DIRECTORY));
+
+            if(project.contains(PROJECTS_SEPARATOR) || project.contains(ProjectProvider.WILDCARD)) {
+                // generate the reports of several projects
+                final int threads = Integer.parseInt(params.get(StringManager.REPORT_BATCH_THREADS));
+                new BatchReport(url, token, author, date, reportPath, reportTemplate,
+                        issuesTemplate, incremental).run(findProjects(url, token, project), threads);
+            } else {
+                // generate report
+                report(url, token, project, author, date, reportPath, reportTemplate, issuesTemplate,
+                        incremental);
+            }
 
         } catch (BadExportationDataTypeException | MalformedParameterException |
                 BadSonarQubeRequestException | IOException | UnknownParameterException |
@@ -159,11 +199,56 @@ public final class ReportCommandLine {
         }
     }
 
+    /**
+     * Generate all files of a project's report
+     * @param url url of SonarQube
+     * @param token token to authenticate to SonarQube
+     * @param project key of the project
+     * @param author author of the report
+     * @param date date of the report
+     * @param reportPath folder where files are written
+     * @param reportTemplate template of the docx report
+     * @param issuesTemplate template of the xlsx issues' list
+     * @throws IOException when contacting the server or writing files
+     * @throws BadSonarQubeRequestException when a request to the server is not well-formed
+     * @throws UnknownQualityGateException a quality gate is not correct
+     * @throws XmlException on xml error
+     * @throws BadExportationDataTypeException if data does not correspond to an exporter
+     * @throws OpenXML4JException on OpenXML error
+     */
     public static void report(final String url, final String token, final String project,
                               final String author, final String date, final String reportPath,
                               final String reportTemplate, final String issuesTemplate)
             throws IOException, BadSonarQubeRequestException, UnknownQualityGateException,
             XmlException, BadExportationDataTypeException, OpenXML4JException {
+        report(url, token, project, author, date, reportPath, reportTemplate, issuesTemplate, false);
+    }
+
+    /**
+     * Generate all files of a project's report, possibly from the previous one
+     * @param url url of SonarQube
+     * @param token token to authenticate to SonarQube
+     * @param project key of the project
+     * @param author author of the report
+     * @param date date of the report
+     * @param reportPath folder where files are written
+     * @param reportTemplate template of the docx report
+     * @param issuesTemplate template of the xlsx issues' list
+     * @param incremental true to only request issues changed since the previous report
+     * and keep a snapshot of this one for the next time
+     * @throws IOException when contacting the server or writing files
+     * @throws BadSonarQubeRequestException when a request to the server is not well-formed
+     * @throws UnknownQualityGateException a quality gate is not correct
+     * @throws XmlException on xml error
+     * @throws BadExportationDataTypeException if data does not correspond to an exporter
+     * @throws OpenXML4JException on OpenXML error
+     */
+    public static void report(final String url, final String token, final String project,
+                              final String author, final String date, final String reportPath,
+                              final String reportTemplate, final String issuesTemplate,
+                              final boolean incremental)
+            throws IOException, BadSonarQubeRequestException, UnknownQualityGateException,
+            XmlException, BadExportationDataTypeException, OpenXML4JException {
         // Files exporters : export the resources in the correct file type
         final DocXExporter docXExporter = new DocXExporter();
         final XmlExporter profileExporter = new XmlExporter();
@@ -181,8 +266,16 @@ public final class ReportCommandLine {
             LOGGER.warning(String.format(CNES_MKDIR_ERROR, confDirectory));
         }
 
-        // Producing the report
-        final Report superReport = new ReportFactory(url, token, project, author, date).create();
+        // Producing the report, from the previous one if asked
+        final ReportFactory reportFactory = new ReportFactory(url, token, project, author, date);
+        final File snapshot = ReportSnapshot.getFile(reportPath, project);
+        if(incremental) {
+            reportFactory.setPreviousReport(ReportSnapshot.load(snapshot));
+        }
+        final Report superReport = reportFactory.create();
+        if(incremental) {
+            ReportSnapshot.save(superReport, snapshot);
+        }
 
         // Export all
         // export each linked quality profile
@@ -205,6 +298,45 @@ public final class ReportCommandLine {
                 superReport.getProjectName());
         // export the xlsx issues' list
         issuesExporter.export(superReport, reportPath+"/"+xlsXFilename, issuesTemplate);
+
+        // log http connections' reuse
+        LOGGER.info(String.format(POOL_STATISTICS_MESSAGE, RequestManager.getInstance().getStatistics()));
+        LOGGER.info(String.format(CACHE_STATISTICS_MESSAGE, RequestManager.getInstance().getResponseCache()));
+    }
+
+    /**
+     * Give the keys of the projects to report in a batch
+     * @param url url of SonarQube
+     * @param token token to authenticate to SonarQube
+     * @param projects keys separated by PROJECTS_SEPARATOR, each one can contain wildcards
+     * @return keys of existing projects without duplicates, in the given order
+     * @throws IOException when contacting the server
+     * @throws BadSonarQubeRequestException when a request to the server is not well-formed
+     */
+    public static List<String> findProjects(final String url, final String token,
+                                            final String projects)
+            throws IOException, BadSonarQubeRequestException {
+        final List<String> keys = new ArrayList<>();
+        final ProjectProvider provider = new ProjectProvider(url, token, StringManager.EMPTY);
+        for(String item : projects.split(PROJECTS_SEPARATOR)) {
+            final String key = item.trim();
+            final List<String> found = new ArrayList<>();
+            if(key.contains(ProjectProvider.WILDCARD)) {
+                // search the server for matching projects
+                found.addAll(provider.searchProjectKeys(key));
+                if(found.isEmpty()) {
+                    LOGGER.warning(String.format(NO_PROJECT_MESSAGE, key));
+                }
+            } else if(!key.isEmpty()) {
+                found.add(key);
+            }
+            for(String candidate : found) {
+                if(!keys.contains(candidate)) {
+                    keys.add(candidate);
+                }
+            }
+        }
+        return keys;
     }
 
     /**
@@ -184,16 +184,6 @@ public final class DataAdapter {
      * Field in json response for security mark
      */
     private static final String SECURITY_RATING = "security_rating";
-    /**
-     * List of possible issue types
-     */
-    private static final String[] ISSUE_TYPES = {"VULNERABILITY", "BUG", "CODE_SMELL"};
-    /**
-     * List of possible issue severities
-     */
-    private static final String[] ISSUE_SEVERITIES = {
-        "BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO"
-    };
     /**
      * Field in json response for number of code lines per language
      */
@@ -230,19 +220,12 @@ public final class DataAdapter {
         // result to return
         final List<List<String>> results = new ArrayList<>();
 
-        final String[] types = ISSUE_TYPES;
-        final String[] severities = ISSUE_SEVERITIES;
-
-        for(String type : types) {
-            for (String severity : severities) {
-                // accumulator for the number of occurrences
-                long nb = 0;
-                // we sum all issues with a type and a severity
-                for(Issue issue : report.getIssues()) {
-                    if(issue.getType().equals(type) && issue.getSeverity().equals(severity)) {
-                        nb++;
-                    }
-                }
+        // all counts are computed in a single pass over issues
+        final IssuesStatistics statistics = report.getIssuesStatistics();
+
+        for(String type : IssuesStatistics.getTypes()) {
+            for (String severity : IssuesStatistics.getSeverities()) {
+                final long nb = statistics.count(type, severity);
                 // we add it to the list
                 final List<String> item = new ArrayList<>();
                 item.add(type);
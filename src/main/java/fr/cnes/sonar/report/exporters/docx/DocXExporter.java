@@ -19,21 +19,23 @@ package fr.cnes.sonar.report.exporters.docx;
 
 import fr.cnes.sonar.report.exceptions.BadExportationDataTypeException;
 import fr.cnes.sonar.report.exporters.IExporter;
+import fr.cnes.sonar.report.utils.CloseShieldOutputStream;
 import fr.cnes.sonar.report.utils.StringManager;
 import fr.cnes.sonar.report.model.Report;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
-import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.xmlbeans.XmlException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 
 /**
  * Exports the report in .docx format
@@ -78,6 +80,28 @@ public class DocXExporter implements IExporter {
      * End index of the sub array in the headers array for the the second table
      */
     private static final int HEADER_END_INDEX = 5;
+    /**
+     * Placeholders of tables located when compiling a template
+     */
+    private static final List<String> TABLE_PLACEHOLDERS = Arrays.asList(
+            DETAILS_TABLE_PLACEHOLDER, COUNT_TABLE_PLACEHOLDER, VOLUME_TABLE_PLACEHOLDER);
+    /**
+     * Placeholders of charts' titles located when compiling a template
+     */
+    private static final List<String> CHART_PLACEHOLDERS = Arrays.asList(
+            DocXTools.SEVERITY_TABLE_PLACEHOLDER, DocXTools.TYPE_TABLE_PLACEHOLDER);
+    /**
+     * Message logged with the number of replaced placeholders
+     */
+    private static final String REPLACED_MESSAGE = "%d placeholders replaced in the report";
+    /**
+     * Message logged with the time spent rendering a report
+     */
+    private static final String RENDERED_MESSAGE = "Report rendered in %d ms";
+    /**
+     * Logger of this class
+     */
+    private static final Logger LOGGER = Logger.getLogger(DocXExporter.class.getName());
 
     /**
      * Overridden export for docX
@@ -97,54 +121,69 @@ public class DocXExporter implements IExporter {
         if (!(data instanceof Report)) {
             throw new BadExportationDataTypeException();
         }
-        // resources casting
-        final Report report = (Report) data;
 
-        // open excel file from the path given in the parameters
-        final File file = new File(filename);
-        try (
-            FileInputStream fileInputStream = new FileInputStream(file);
-            OPCPackage opcPackage = OPCPackage.open(fileInputStream);
-            XWPFDocument document = new XWPFDocument(opcPackage)
-        ) {
+        // Save the result by creating a new file in the directory given by report.path property
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            export((Report) data, out, filename);
+        }
+
+        return new File(path);
+    }
+
+    /**
+     * Export a report in docx format into a stream, which is not closed
+     * @param report Report to export
+     * @param output Stream receiving the document
+     * @param filename Name of the template file
+     * @throws OpenXML4JException ...
+     * @throws IOException ...
+     * @throws XmlException ...
+     */
+    public void export(Report report, OutputStream output, String filename)
+            throws OpenXML4JException, IOException, XmlException {
+        final long start = System.currentTimeMillis();
+        // the template is read and analysed once, each report works on a fresh copy
+        final DocXTemplate template = DocXTemplate.compile(filename,
+                TABLE_PLACEHOLDERS, CHART_PLACEHOLDERS);
+        try (XWPFDocument document = template.open()) {
+
+            // paragraphs to replace are found before tables are modified
+            final List<XWPFParagraph> paragraphs = template.getParagraphs(document);
 
             // Fill charts
-            DocXTools.fillCharts(opcPackage, document, report.getFacets());
+            DocXTools.fillCharts(template.getChartSpaces(document), report.getFacets());
 
             // Add issues
             final List<List<String>> issues = DataAdapter.getIssues(report);
             final String[] issuesArrayFr = HEADER_FIELDS;
             final List<String> headerIssues = new ArrayList<>(Arrays.asList(issuesArrayFr));
-            DocXTools.fillTable(document, headerIssues, issues, DETAILS_TABLE_PLACEHOLDER);
+            DocXTools.fillTable(document, template.getTable(document, DETAILS_TABLE_PLACEHOLDER),
+                    headerIssues, issues);
 
             // Add issues count by type and severity
             final List<List<String>> types = DataAdapter.getTypes(report);
-            DocXTools.fillTable(document,
-                    headerIssues.subList(HEADER_START_INDEX, HEADER_END_INDEX),
-                    types, COUNT_TABLE_PLACEHOLDER);
+            DocXTools.fillTable(document, template.getTable(document, COUNT_TABLE_PLACEHOLDER),
+                    headerIssues.subList(HEADER_START_INDEX, HEADER_END_INDEX), types);
 
             // Add volumes by language
             final List<String> volumesHeader = new ArrayList<>(Arrays.asList(VOLUMES_HEADER));
             final List<List<String>> volumes = DataAdapter.getVolumes(report);
-            DocXTools.fillTable(document, volumesHeader, volumes, VOLUME_TABLE_PLACEHOLDER);
+            DocXTools.fillTable(document, template.getTable(document, VOLUME_TABLE_PLACEHOLDER),
+                    volumesHeader, volumes);
 
             // Map which contains all values to replace
             // the key is the placeholder and the value is the value to write over
             final Map<String, String> replacementValues = DataAdapter.loadPlaceholdersMap(report);
 
             // replace all placeholder in the document (head, body, foot) with the map
-            DocXTools.replacePlaceholder(document, replacementValues);
-
-            // Save the result by creating a new file in the directory given by report.path property
-            final FileOutputStream out = new FileOutputStream(path);
-            // close open resources
-            document.write(out);
-            out.close();
-            document.close();
-        }
+            final int replaced = DocXTools.replacePlaceholder(paragraphs, replacementValues);
+            LOGGER.fine(String.format(REPLACED_MESSAGE, replaced));
 
-        return new File(path);
+            // POI closes the stream it writes in
+            document.write(new CloseShieldOutputStream(output));
+        }
+        LOGGER.fine(String.format(RENDERED_MESSAGE, System.currentTimeMillis() - start));
     }
 
-
 }
+
@@ -0,0 +1,382 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.exporters.docx;
+
+import org.apache.poi.POIXMLDocumentPart;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xwpf.usermodel.BodyElementType;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFHeaderFooter;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.apache.xmlbeans.XmlException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Template compiled once and rendered many times: its content is kept
+ * in memory with the location of placeholders, placeholder tables and
+ * charts, so that a report only opens a fresh copy and goes straight
+ * to the parts to modify
+ * @author lequal
+ */
+final class DocXTemplate {
+
+    /**
+     * Start of all placeholders written in paragraphs
+     */
+    private static final String PLACEHOLDER_PREFIX = "XX-";
+    /**
+     * Part of the names of charts' parts
+     */
+    private static final String CHARTS_FOLDER = "/word/charts/";
+    /**
+     * Message logged when a template is compiled
+     */
+    private static final String COMPILED_MESSAGE =
+            "Template %s compiled: %d paragraphs, %d tables and %d charts to fill";
+
+    /**
+     * Maximum number of compiled templates kept in memory
+     */
+    private static final int MAX_TEMPLATES = 8;
+
+    /**
+     * Logger of this class
+     */
+    private static final Logger LOGGER = Logger.getLogger(DocXTemplate.class.getName());
+
+    /**
+     * Compiled templates indexed by absolute path, the least recently
+     * used one is forgotten when there are more than MAX_TEMPLATES
+     */
+    private static final Map<String, DocXTemplate> TEMPLATES =
+            new LinkedHashMap<String, DocXTemplate>(MAX_TEMPLATES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, DocXTemplate> eldest) {
+                    return size() > MAX_TEMPLATES;
+                }
+            };
+
+    /**
+     * Content of the template's file
+     */
+    private final byte[] content;
+    /**
+     * Date of last modification of the file when it was read
+     */
+    private final long lastModified;
+    /**
+     * Size (in bytes) of the file when it was read
+     */
+    private final long length;
+    /**
+     * Location of paragraphs containing placeholders
+     */
+    private final List<Location> paragraphs;
+    /**
+     * Index (in the document's tables) of each placeholder table found
+     */
+    private final Map<String, Integer> tables;
+    /**
+     * Names of the parts of charts whose title contains a placeholder
+     */
+    private final Set<String> charts;
+
+    /**
+     * Compile a template
+     * @param pContent content of the template's file
+     * @param pLastModified date of last modification of the file
+     * @param tableNames placeholders of tables to locate
+     * @param chartNames placeholders of charts' titles to locate
+     * @throws OpenXML4JException when the file is not a docx
+     * @throws IOException when reading the file
+     * @throws XmlException when a chart can not be parsed
+     */
+    private DocXTemplate(final byte[] pContent, final long pLastModified,
+                         final List<String> tableNames, final List<String> chartNames)
+            throws OpenXML4JException, IOException, XmlException {
+        this.content = pContent;
+        this.lastModified = pLastModified;
+        this.length = pContent.length;
+        this.paragraphs = new ArrayList<>();
+        this.tables = new HashMap<>();
+        this.charts = new HashSet<>();
+
+        try (XWPFDocument document = open()) {
+            // first table containing each placeholder, as DocXTools.fillTable does
+            final List<XWPFTable> documentTables = document.getTables();
+            for(String name : tableNames) {
+                boolean found = false;
+                for(int i = 0; i < documentTables.size() && !found; i++) {
+                    if(documentTables.get(i).getText().contains(name)) {
+                        tables.put(name, i);
+                        found = true;
+                    }
+                }
+            }
+
+            // paragraphs of placeholder tables are replaced by data so they are skipped
+            final Set<XWPFTable> filled = new HashSet<>();
+            for(Integer index : tables.values()) {
+                filled.add(documentTables.get(index));
+            }
+            final List<List<IBodyElement>> containers = getContainers(document);
+            for(int c = 0; c < containers.size(); c++) {
+                locateParagraphs(c, containers.get(c), filled);
+            }
+
+            // charts whose title is a placeholder
+            for(XWPFChartSpace chartSpace : XWPFChartSpace.getChartSpaces(document)) {
+                final String title = chartSpace.getTitle();
+                boolean found = false;
+                for(int i = 0; i < chartNames.size() && !found; i++) {
+                    found = title.contains(chartNames.get(i));
+                }
+                if(found) {
+                    charts.add(chartSpace.getPartName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Give the compiled version of a template, it is compiled again
+     * when its file changed since the last compilation
+     * @param filename path of the template
+     * @param tableNames placeholders of tables to locate
+     * @param chartNames placeholders of charts' titles to locate
+     * @return the compiled template
+     * @throws OpenXML4JException when the file is not a docx
+     * @throws IOException when reading the file
+     * @throws XmlException when a chart can not be parsed
+     */
+    static DocXTemplate compile(final String filename, final List<String> tableNames,
+                                final List<String> chartNames)
+            throws OpenXML4JException, IOException, XmlException {
+        final File file = new File(filename).getAbsoluteFile();
+        final String key = file.getPath();
+        DocXTemplate template;
+        synchronized (TEMPLATES) {
+            template = TEMPLATES.get(key);
+        }
+        // a concurrent compilation of the same file is harmless
+        if(template == null || !template.isUpToDate(file)) {
+            final long modified = file.lastModified();
+            template = new DocXTemplate(Files.readAllBytes(file.toPath()), modified,
+                    tableNames, chartNames);
+            synchronized (TEMPLATES) {
+                TEMPLATES.put(key, template);
+            }
+            LOGGER.fine(String.format(COMPILED_MESSAGE, key, template.paragraphs.size(),
+                    template.tables.size(), template.charts.size()));
+        }
+        return template;
+    }
+
+    /**
+     * Tell whether the template is the current content of its file: the file
+     * must have the same date of last modification and the same size, as a
+     * copy may keep the date or happen within the date's precision
+     * @param file file of the template
+     * @return false if the template must be compiled again
+     */
+    private boolean isUpToDate(final File file) {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    /**
+     * Open a new copy of the template
+     * @return a document which can be modified
+     * @throws OpenXML4JException when the content is not a docx
+     * @throws IOException when reading the content
+     */
+    XWPFDocument open() throws OpenXML4JException, IOException {
+        return new XWPFDocument(OPCPackage.open(new ByteArrayInputStream(content)));
+    }
+
+    /**
+     * Find the paragraphs containing placeholders in a copy of the template,
+     * they must be found before filling tables
+     * @param document a copy opened with open()
+     * @return paragraphs to replace
+     */
+    List<XWPFParagraph> getParagraphs(final XWPFDocument document) {
+        final List<List<IBodyElement>> containers = getContainers(document);
+        final List<XWPFParagraph> result = new ArrayList<>(paragraphs.size());
+        for(Location location : paragraphs) {
+            result.add(location.resolve(containers));
+        }
+        return result;
+    }
+
+    /**
+     * Find a placeholder table in a copy of the template
+     * @param document a copy opened with open()
+     * @param name placeholder of the table
+     * @return the table or null if the template does not contain it
+     */
+    XWPFTable getTable(final XWPFDocument document, final String name) {
+        final Integer index = tables.get(name);
+        return index == null ? null : document.getTables().get(index);
+    }
+
+    /**
+     * Parse the charts to fill in a copy of the template, others are not parsed
+     * @param document a copy opened with open()
+     * @return the charts whose title contains a placeholder
+     * @throws IOException when reading a chart
+     * @throws XmlException when a chart can not be parsed
+     */
+    List<XWPFChartSpace> getChartSpaces(final XWPFDocument document)
+            throws IOException, XmlException {
+        final List<XWPFChartSpace> result = new ArrayList<>(charts.size());
+        for(POIXMLDocumentPart part : document.getRelations()) {
+            if(charts.contains(part.getPackagePart().getPartName().getName())) {
+                result.add(XWPFChartSpace.parse(part.getPackagePart()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record the location of paragraphs containing placeholders
+     * @param container index of the container
+     * @param elements elements of the container
+     * @param skipped tables whose paragraphs are not recorded
+     */
+    private void locateParagraphs(final int container, final List<IBodyElement> elements,
+                                  final Set<XWPFTable> skipped) {
+        for(int e = 0; e < elements.size(); e++) {
+            final IBodyElement element = elements.get(e);
+            if(element.getElementType() == BodyElementType.PARAGRAPH) {
+                if(DocXTools.getText((XWPFParagraph) element).contains(PLACEHOLDER_PREFIX)) {
+                    paragraphs.add(new Location(container, e, -1, -1, -1));
+                }
+            } else if(element.getElementType() == BodyElementType.TABLE
+                    && !skipped.contains(element)) {
+                // browse all paragraphs of all cells
+                final List<XWPFTableRow> rows = ((XWPFTable) element).getRows();
+                for(int r = 0; r < rows.size(); r++) {
+                    final List<XWPFTableCell> cells = rows.get(r).getTableCells();
+                    for(int c = 0; c < cells.size(); c++) {
+                        final List<XWPFParagraph> cellParagraphs = cells.get(c).getParagraphs();
+                        for(int p = 0; p < cellParagraphs.size(); p++) {
+                            if(DocXTools.getText(cellParagraphs.get(p)).contains(PLACEHOLDER_PREFIX)) {
+                                paragraphs.add(new Location(container, e, r, c, p));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Give elements of the body, of headers and of footers, in this order
+     * @param document the document to browse
+     * @return a list of elements per container
+     */
+    private static List<List<IBodyElement>> getContainers(final XWPFDocument document) {
+        final List<List<IBodyElement>> containers = new ArrayList<>();
+        containers.add(document.getBodyElements());
+        for(XWPFHeaderFooter header : document.getHeaderList()) {
+            containers.add(header.getBodyElements());
+        }
+        for(XWPFHeaderFooter footer : document.getFooterList()) {
+            containers.add(footer.getBodyElements());
+        }
+        return Collections.unmodifiableList(containers);
+    }
+
+    /**
+     * Position of a paragraph in a document: its container, the element
+     * of the container and, for a table, the row, cell and paragraph
+     */
+    private static final class Location {
+        /**
+         * Index of the body, a header or a footer
+         */
+        private final int container;
+        /**
+         * Index of the element in the container
+         */
+        private final int element;
+        /**
+         * Index of the row, -1 if the element is a paragraph
+         */
+        private final int row;
+        /**
+         * Index of the cell in the row
+         */
+        private final int cell;
+        /**
+         * Index of the paragraph in the cell
+         */
+        private final int paragraph;
+
+        /**
+         * Complete constructor
+         * @param pContainer index of the body, a header or a footer
+         * @param pElement index of the element in the container
+         * @param pRow index of the row, -1 if the element is a paragraph
+         * @param pCell index of the cell in the row
+         * @param pParagraph index of the paragraph in the cell
+         */
+        private Location(final int pContainer, final int pElement, final int pRow,
+                         final int pCell, final int pParagraph) {
+            this.container = pContainer;
+            this.element = pElement;
+            this.row = pRow;
+            this.cell = pCell;
+            this.paragraph = pParagraph;
+        }
+
+        /**
+         * Find the paragraph at this location
+         * @param containers elements of the document per container
+         * @return the paragraph
+         */
+        private XWPFParagraph resolve(final List<List<IBodyElement>> containers) {
+            final IBodyElement found = containers.get(container).get(element);
+            final XWPFParagraph result;
+            if(row < 0) {
+                result = (XWPFParagraph) found;
+            } else {
+                result = ((XWPFTable) found).getRow(row).getCell(cell).getParagraphs().get(paragraph);
+            }
+            return result;
+        }
+    }
+}
@@ -23,11 +23,15 @@ import fr.cnes.sonar.report.model.Value;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
-import org.apache.poi.ss.util.ImageUtils;
 import org.apache.poi.xwpf.usermodel.*;
+import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTRow;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTc;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTText;
 
-import java.awt.*;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -41,14 +45,6 @@ import java.util.Map;
  */
 public final class DocXTools {
 
-    /**
-     * folder for image resources
-     */
-    private static final String IMG_FOLDER = "img/";
-    /**
-     * extension for png
-     */
-    private static final String PNG_EXTENSION = ".png";
     /**
      * title for chart displaying number of issues by severity
      */
@@ -60,11 +56,11 @@ public final class DocXTools {
     /**
      * placeholder for chart displaying number of issues by severity
      */
-    private static final String TYPE_TABLE_PLACEHOLDER = "$TYPE";
+    static final String TYPE_TABLE_PLACEHOLDER = "$TYPE";
     /**
      * placeholder for chart displaying number of issues by severity
      */
-    private static final String SEVERITY_TABLE_PLACEHOLDER = "$SEVERITY";
+    static final String SEVERITY_TABLE_PLACEHOLDER = "$SEVERITY";
     /**
      * facet's name for number of issues by severity
      */
@@ -73,6 +69,14 @@ public final class DocXTools {
      * facet's name for number of issues by type
      */
     private static final String TYPES = "types";
+    /**
+     * Attribute keeping spaces of a text
+     */
+    private static final QName XML_SPACE = new QName("http://www.w3.org/XML/1998/namespace", "space");
+    /**
+     * Value of XML_SPACE to keep spaces
+     */
+    private static final String PRESERVE = "preserve";
 
     /**
      * Private constructor to hide the public one
@@ -90,8 +94,18 @@ public final class DocXTools {
      */
     public static void fillCharts(OPCPackage opcPackage, XWPFDocument document, List<Facet> facets)
             throws OpenXML4JException, IOException, XmlException {
+        fillCharts(XWPFChartSpace.getChartSpaces(document), facets);
+    }
 
-        final List<XWPFChartSpace> chartSpaces = XWPFChartSpace.getChartSpaces(document);
+    /**
+     * Fill the charts "camembert" among the given charts,
+     * each modified chart is written once in the document
+     * @param chartSpaces charts of the document
+     * @param facets resources as facets
+     * @throws IOException ...
+     */
+    static void fillCharts(List<XWPFChartSpace> chartSpaces, List<Facet> facets)
+            throws IOException {
         final List<Value> dataPerType = DataAdapter.getFacetValues(facets, TYPES);
         final List<Value> dataPerSeverity = DataAdapter.getFacetValues(facets, SEVERITIES);
 
@@ -108,6 +122,8 @@ public final class DocXTools {
                 chartSpace.setValues(dataPerType);
                 chartSpace.setTitle(StringManager.string(CHART_TYPE_TITLE));
             }
+            // modifications are written once per chart
+            chartSpace.save();
         }
     }
 
@@ -117,10 +133,11 @@ public final class DocXTools {
      * which contains string.
      * @param document word file
      * @param values a map containing pairs of placeholder/value
+     * @return number of replaced placeholders
      * @throws OpenXML4JException when a problem occurred on the file writting
      * @throws IOException when a problem occurred on the pictures loading
      */
-    static void replacePlaceholder(XWPFDocument document, Map<String,String> values)
+    public static int replacePlaceholder(XWPFDocument document, Map<String,String> values)
             throws OpenXML4JException, IOException {
 
         // Gather all elements in header, footer and body
@@ -128,13 +145,27 @@ public final class DocXTools {
         final List<IBodyElement> elements = getAllElements(document);
 
         // gather all paragraphs from the previous collected elements
-        final List<XWPFParagraph> paragraphs = getAllParagraphs(elements);
+        return replacePlaceholder(getAllParagraphs(elements), values);
+    }
 
+    /**
+     * Replace placeholders in some paragraphs of a word
+     * @param paragraphs paragraphs to browse
+     * @param values a map containing pairs of placeholder/value
+     * @return number of replaced placeholders
+     * @throws OpenXML4JException when a problem occurred on the file writting
+     * @throws IOException when a problem occurred on the pictures loading
+     */
+    static int replacePlaceholder(List<XWPFParagraph> paragraphs, Map<String,String> values)
+            throws OpenXML4JException, IOException {
         // replace all placeholders in all gathered paragraphs
+        final PlaceholderMatcher matcher = new PlaceholderMatcher(values);
+        int count = 0;
         for (XWPFParagraph p : paragraphs) {
-            replaceInParagraph(p, values);
+            count += replaceInParagraph(p, matcher);
         }
 
+        return count;
     }
 
     /**
@@ -207,72 +238,62 @@ public final class DocXTools {
     }
 
     /**
-     * Replace placeholders inside a paragraph by values given in a map
+     * Replace placeholders inside a paragraph by values given in a map,
+     * paragraphs without placeholder are not modified
      * @param paragraph paragraph to modify, style will be the default paragraph style
-     * @param values a map indexed by placeholders
+     * @param matcher placeholders and their values
+     * @return number of replaced placeholders
      * @throws IOException When opening pictures
      * @throws InvalidFormatException When dealing with open files
      */
-    private static void replaceInParagraph(XWPFParagraph paragraph, Map<String,String> values)
+    private static int replaceInParagraph(XWPFParagraph paragraph, PlaceholderMatcher matcher)
             throws IOException, InvalidFormatException {
-        // Concatenate all runs' content in a single string
-        final StringBuilder sb = new StringBuilder();
         final List<XWPFRun> runs = paragraph.getRuns();
-        int pos;
-        for (XWPFRun r : runs){
-            pos = r.getTextPosition();
-            if(r.getText(pos) != null) {
-                sb.append(r.getText(pos));
-            }
-        }
+
+        // construct here the new string by replacing each placeholder by its value
+        final PlaceholderMatcher.Result result = matcher.replace(getText(paragraph));
 
         // if there are matter to work on
-        if(sb.length()!=0) {
+        if(result != null) {
             // delete all runs to replace it by one single run
             for(int i = runs.size() - 1; i >= 0; i--) {
                 paragraph.removeRun(i);
             }
 
-            // construct here the new string by replacing each placeholder by its value
-            String text = sb.toString();
-            final List<String> pictures = new ArrayList<>();
-            String key, value;
-            for (Map.Entry<String, String> nextValue : values.entrySet()) {
-                key = nextValue.getKey();
-                value = nextValue.getValue();
-
-                // if we try to replace by a png picture
-                if(value.endsWith(PNG_EXTENSION) && text.contains(key)) {
-                    // we save the filename
-                    pictures.add(value);
-                    value = StringManager.EMPTY;
-                }
-                // finally we concatenate
-                text = text.replaceAll(key, value);
-            }
-
             // Add new run with updated text
             final XWPFRun run = paragraph.createRun();
-            run.setText(text);
+            run.setText(result.getText());
             // add images if we have something to add
-            if(!pictures.isEmpty()) {
-                // browse picture list previously filled out
-                ClassLoader classloader;
-                InputStream is;
-                Dimension dim;
-                for(String filename : pictures) {
-                    classloader = Thread.currentThread().getContextClassLoader();
-                    is = classloader.getResourceAsStream(IMG_FOLDER +filename);
-                    // height and width are retrieve from here
-                    dim = ImageUtils.getImageDimension(is, XWPFDocument.PICTURE_TYPE_PNG);
+            // browse picture list previously filled out
+            for(String filename : result.getPictures()) {
+                // pictures are loaded once, the document stores each one once
+                final ImageRegistry.Image image = ImageRegistry.get(filename);
+                try (InputStream is = image.open()) {
                     run.addPicture(is, XWPFDocument.PICTURE_TYPE_PNG,
-                            filename, dim.width, dim.height);
-                    // close picture
-                    is.close();
+                            filename, image.getWidth(), image.getHeight());
                 }
             }
             paragraph.addRun(run);
         }
+
+        return result == null ? 0 : result.getCount();
+    }
+
+    /**
+     * Concatenate the content of all runs of a paragraph
+     * @param paragraph paragraph to read
+     * @return text of the paragraph
+     */
+    static String getText(XWPFParagraph paragraph) {
+        final StringBuilder sb = new StringBuilder();
+        int pos;
+        for (XWPFRun r : paragraph.getRuns()){
+            pos = r.getTextPosition();
+            if(r.getText(pos) != null) {
+                sb.append(r.getText(pos));
+            }
+        }
+        return sb.toString();
     }
 
     /**
@@ -288,58 +309,113 @@ public final class DocXTools {
     public static void fillTable(XWPFDocument document, List<String> header,
                                  List<List<String>> data, String name) {
 
+        // table to fill out
+        XWPFTable table = null;
+
+        // search for a table with the corresponding placeholder
+        final Iterator<XWPFTable> iterator = document.getTablesIterator();
+        XWPFTable current;
+        boolean found = false;
+        while (iterator.hasNext() && !found) {
+            current = iterator.next();
+            if(current.getText().contains(name)) {
+                table = current;
+                found = true;
+            }
+        }
+
+        fillTable(document, table, header, data, true);
+    }
+
+    /**
+     * Fill a table already found with resources sorted by lines in a list of strings,
+     * for DocXExporter only: resources rows are written in the table's xml but
+     * not listed by XWPFTable.getRows(), the document can only be saved afterwards
+     * @param document Document containing the table
+     * @param found Table to fill, if it is null a new table is added
+     *              at the end of the document
+     * @param header Header to add in the table
+     * @param data Issues to add in the table
+     */
+    static void fillTable(XWPFDocument document, XWPFTable found, List<String> header,
+                          List<List<String>> data) {
+        fillTable(document, found, header, data, false);
+    }
+
+    /**
+     * Fill a table with resources rows built from a prototype row directly in
+     * the table's xml, which is much faster than adding cells one by one
+     * @param document Document containing the table
+     * @param found Table to fill, if it is null a new table is added
+     *              at the end of the document
+     * @param header Header to add in the table
+     * @param data Issues to add in the table
+     * @param listRows true to also list resources rows in XWPFTable.getRows(),
+     *                 which costs most of the time of the filling
+     */
+    private static void fillTable(XWPFDocument document, XWPFTable found, List<String> header,
+                                  List<List<String>> data, boolean listRows) {
+
         // if there are no resources, there a
         if(data!=null && !data.isEmpty()) {
             // table to fill out
-            XWPFTable table = null;
-
-            // search for a table with the corresponding placeholder
-            final Iterator<XWPFTable> iterator = document.getTablesIterator();
-            XWPFTable current;
-            boolean found = false;
-            while (iterator.hasNext() && !found) {
-                current = iterator.next();
-                if(current.getText().contains(name)) {
-                    table = current;
-                    found = true;
-                }
-            }
+            XWPFTable table = found;
 
             // if the table does not exist, we create one at the bottom of the document
-            if (!found) {
+            if (table == null) {
                 table = document.createTable();
             // otherwise we clear the table
             } else {
-                if(table!=null) {
-                    for (int i = table.getNumberOfRows() - 1; i >= 0; --i) {
-                        table.removeRow(i);
-                    }
+                for (int i = table.getNumberOfRows() - 1; i >= 0; --i) {
+                    table.removeRow(i);
                 }
             }
 
             // create the top line (header) and fill it
-            XWPFTableRow row = table.createRow();
+            final XWPFTableRow row = table.createRow();
             for(String field : header) {
                 row.createCell().setText(field);
             }
 
-            // create resources rows
-            for(int i = 0 ; i < data.size() ; i++) {
-                table.createRow();
+            // prototype of resources rows: as many empty cells as the first row
+            final CTRow prototype = CTRow.Factory.newInstance();
+            final int columns = table.getCTTbl().getTrArray(0).sizeOfTcArray();
+            for(int i = 0 ; i < columns ; i++) {
+                prototype.addNewTc().addNewP();
             }
 
-            // fill resources rows
-            for(int iLine = 0 ; iLine < data.size() ; iLine++) {
-                row = table.getRow(iLine+1);
-                final List<String> line = data.get(iLine);
-
+            // create and fill resources rows directly in xml, in a single pass
+            for(List<String> line : data) {
+                final CTRow ctRow = table.getCTTbl().addNewTr();
+                ctRow.set(prototype);
+                final CTTc[] cells = ctRow.getTcArray();
                 for (int iCell = 0; iCell < line.size(); iCell++) {
-                    if(iCell>=row.getTableCells().size()) {
-                        row.createCell();
-                    }
-                    row.getCell(iCell).setText(line.get(iCell));
+                    final CTP paragraph = iCell < cells.length ? cells[iCell].getPArray(0)
+                            : ctRow.addNewTc().addNewP();
+                    setText(paragraph.addNewR().addNewT(), line.get(iCell));
+                }
+                // the wrapper reads the cells of the filled row
+                if(listRows) {
+                    table.getRows().add(new XWPFTableRow(ctRow, table));
                 }
             }
         }
     }
+
+    /**
+     * Set the content of a text, keeping its leading and trailing spaces
+     * as XWPFRun.setText does
+     * @param text text element of a run
+     * @param value content to write
+     */
+    private static void setText(CTText text, String value) {
+        text.setStringValue(value);
+        if(value != null && (value.startsWith(StringManager.SPACE)
+                || value.endsWith(StringManager.SPACE))) {
+            final XmlCursor cursor = text.newCursor();
+            cursor.toNextToken();
+            cursor.insertAttributeWithValue(XML_SPACE, PRESERVE);
+            cursor.dispose();
+        }
+    }
 }
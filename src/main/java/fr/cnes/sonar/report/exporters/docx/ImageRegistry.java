@@ -0,0 +1,136 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.exporters.docx;
+
+import org.apache.poi.ss.util.ImageUtils;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pictures inserted in place of placeholders, each one is read
+ * from the resources and measured once for all reports
+ * @author lequal
+ */
+final class ImageRegistry {
+
+    /**
+     * folder for image resources
+     */
+    private static final String IMG_FOLDER = "img/";
+    /**
+     * Message of the error raised when a picture is not in the resources
+     */
+    private static final String NOT_FOUND_MESSAGE = "Picture %s not found in resources.";
+
+    /**
+     * Loaded pictures indexed by filename
+     */
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to forbid instantiation of this class
+     */
+    private ImageRegistry() {}
+
+    /**
+     * Give a picture of the img folder, loading it at its first use
+     * @param filename name of the png file
+     * @return the loaded picture
+     * @throws IOException when the picture can not be read
+     */
+    static Image get(final String filename) throws IOException {
+        Image image = IMAGES.get(filename);
+        // a concurrent loading of the same picture is harmless
+        if(image == null) {
+            final ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+            try (InputStream is = classloader.getResourceAsStream(IMG_FOLDER + filename)) {
+                if(is == null) {
+                    throw new IOException(String.format(NOT_FOUND_MESSAGE, filename));
+                }
+                final byte[] data = IOUtils.toByteArray(is);
+                // height and width are retrieve from here
+                final Dimension dim = ImageUtils.getImageDimension(
+                        new ByteArrayInputStream(data), XWPFDocument.PICTURE_TYPE_PNG);
+                image = new Image(data, dim.width, dim.height);
+            }
+            IMAGES.put(filename, image);
+        }
+        return image;
+    }
+
+    /**
+     * Content and size of a picture
+     */
+    static final class Image {
+        /**
+         * Content of the file
+         */
+        private final byte[] data;
+        /**
+         * Width of the picture
+         */
+        private final int width;
+        /**
+         * Height of the picture
+         */
+        private final int height;
+
+        /**
+         * Complete constructor
+         * @param pData content of the file
+         * @param pWidth width of the picture
+         * @param pHeight height of the picture
+         */
+        private Image(final byte[] pData, final int pWidth, final int pHeight) {
+            this.data = pData;
+            this.width = pWidth;
+            this.height = pHeight;
+        }
+
+        /**
+         * Open a new stream on the picture's content
+         * @return a stream to read the picture
+         */
+        InputStream open() {
+            return new ByteArrayInputStream(data);
+        }
+
+        /**
+         * Getter for width
+         * @return width of the picture
+         */
+        int getWidth() {
+            return width;
+        }
+
+        /**
+         * Getter for height
+         * @return height of the picture
+         */
+        int getHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.exporters.docx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Find and replace all placeholders of a text in a single pass:
+ * placeholders are stored in a tree of characters so that each position
+ * of the text only follows the characters which can start a placeholder
+ * @author lequal
+ */
+final class PlaceholderMatcher {
+
+    /**
+     * Extension of values which are pictures to add instead of text
+     */
+    private static final String PNG_EXTENSION = ".png";
+
+    /**
+     * Root of the tree of placeholders
+     */
+    private final Node root;
+
+    /**
+     * Build the tree of placeholders
+     * @param values a map containing pairs of placeholder/value
+     */
+    PlaceholderMatcher(final Map<String, String> values) {
+        this.root = new Node();
+        for(Map.Entry<String, String> entry : values.entrySet()) {
+            Node node = root;
+            for(char c : entry.getKey().toCharArray()) {
+                node = node.children.computeIfAbsent(c, k -> new Node());
+            }
+            node.value = entry.getValue();
+        }
+    }
+
+    /**
+     * Replace all placeholders of a text by their value, pictures are replaced
+     * by an empty string and listed in the result
+     * @param text text containing placeholders
+     * @return the replaced text or null if the text contains no placeholder
+     */
+    Result replace(final String text) {
+        Result result = null;
+        StringBuilder builder = null;
+        // end of the text already copied in builder
+        int copied = 0;
+        int i = 0;
+        while(i < text.length()) {
+            // find the longest placeholder starting here
+            Node node = root.children.get(text.charAt(i));
+            String value = null;
+            int length = 0;
+            int j = i + 1;
+            while(node != null) {
+                if(node.value != null) {
+                    value = node.value;
+                    length = j - i;
+                }
+                node = j < text.length() ? node.children.get(text.charAt(j)) : null;
+                j++;
+            }
+
+            if(value != null) {
+                if(result == null) {
+                    result = new Result();
+                    builder = new StringBuilder(text.length());
+                }
+                builder.append(text, copied, i);
+                if(value.endsWith(PNG_EXTENSION)) {
+                    // we save the filename
+                    result.pictures.add(value);
+                } else {
+                    builder.append(value);
+                }
+                result.count++;
+                i += length;
+                copied = i;
+            } else {
+                i++;
+            }
+        }
+
+        if(result != null) {
+            builder.append(text, copied, text.length());
+            result.text = builder.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Node of the tree of placeholders
+     */
+    private static final class Node {
+        /**
+         * Following characters of placeholders
+         */
+        private final Map<Character, Node> children = new HashMap<>();
+        /**
+         * Value of the placeholder ending here, null if none ends here
+         */
+        private String value;
+    }
+
+    /**
+     * Text where placeholders have been replaced
+     */
+    static final class Result {
+        /**
+         * Replaced text
+         */
+        private String text;
+        /**
+         * Filenames of pictures to add after the text, in order of appearance
+         */
+        private final List<String> pictures = new ArrayList<>();
+        /**
+         * Number of replaced placeholders
+         */
+        private int count;
+
+        /**
+         * Getter for text
+         * @return the replaced text
+         */
+        String getText() {
+            return text;
+        }
+
+        /**
+         * Getter for pictures
+         * @return filenames of pictures to add after the text
+         */
+        List<String> getPictures() {
+            return pictures;
+        }
+
+        /**
+         * Getter for count
+         * @return number of replaced placeholders
+         */
+        int getCount() {
+            return count;
+        }
+    }
+}
@@ -25,8 +25,15 @@ import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTAxDataSource;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTBarSer;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTLineSer;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumDataSource;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumVal;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTPieSer;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTPlotArea;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrData;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrVal;
 import org.openxmlformats.schemas.drawingml.x2006.chart.impl.ChartSpaceDocumentImpl;
 
@@ -58,6 +65,11 @@ public class XWPFChartSpace {
      */
     private PackagePart packagePart;
 
+    /**
+     * True when the chart space has modifications not yet written in its part
+     */
+    private boolean dirty;
+
     /**
      * Basic constructor based on ChartSpaceDocumentImpl
      * @param ctChartSpace a prebuilt chart space
@@ -93,14 +105,34 @@ public class XWPFChartSpace {
 
         // get chart spaces inside previous parts
         for(POIXMLDocumentPart p : charts) {
-            final InputStream inputStream = p.getPackagePart().getInputStream();
+            result.add(parse(p.getPackagePart()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse the chart space of a chart's part
+     * @param part part of the document containing a chart
+     * @return the chart space
+     * @throws IOException When reading the part
+     * @throws XmlException When parsing the part
+     */
+    static XWPFChartSpace parse(PackagePart part) throws IOException, XmlException {
+        try (InputStream inputStream = part.getInputStream()) {
             final ChartSpaceDocumentImpl c = (ChartSpaceDocumentImpl)
                     XmlObject.Factory.parse(inputStream,
                     POIXMLTypeLoader.DEFAULT_XML_OPTIONS);
-            result.add(new XWPFChartSpace(c,p.getPackagePart()));
+            return new XWPFChartSpace(c, part);
         }
+    }
 
-        return result;
+    /**
+     * Give the name of the chart's part in the document
+     * @return name of the part
+     */
+    public String getPartName() {
+        return packagePart.getPartName().getName();
     }
 
     /**
@@ -117,6 +149,7 @@ public class XWPFChartSpace {
      */
     public void setChartSpace(ChartSpaceDocumentImpl ctChartSpace) {
         this.chartSpace = ctChartSpace;
+        this.dirty = true;
     }
 
     /**
@@ -129,47 +162,75 @@ public class XWPFChartSpace {
     }
 
     /**
-     * Set the value of chart's title
+     * Set the value of chart's title, the chart is written by save()
      * @param newTitle the new value
-     * @throws IOException error when writting the chart's file
      */
-    public void setTitle(String newTitle) throws IOException {
+    public void setTitle(String newTitle) {
         chartSpace.getChartSpace().getChart().getTitle().getTx().getRich()
                 .getPList().get(0).getRList().get(0).setT(newTitle);
-        this.save();
+        this.dirty = true;
     }
 
     /**
-     * Save modifications on Chart, must be called for each Chart
+     * Write modifications on Chart in the document, must be called once
+     * all modifications are done: an unmodified chart is not written again
      * @throws IOException When saving chart in the output stream
      */
     public void save() throws IOException {
-        final OutputStream outputStream = packagePart.getOutputStream();
-        chartSpace.save(outputStream);
-        outputStream.close();
+        if(dirty) {
+            try (OutputStream outputStream = packagePart.getOutputStream()) {
+                chartSpace.save(outputStream);
+            }
+            dirty = false;
+        }
     }
 
     /**
-     * Set values contained in the chart 
+     * Tell whether the chart has modifications not yet written
+     * @return true if save() will write the chart
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Set values contained in the first series of a pie, bar or line chart,
+     * the chart is written by save()
      * @param values values to set as a list of label/value
-     * @throws IOException when writing the file
      */
-    public void setValues(List<Value> values) throws IOException {
+    public void setValues(List<Value> values) {
         final CTPlotArea ctPlotArea = chartSpace.getChartSpace().getChart().getPlotArea();
 
-        // if the chart is a pie chart we continue
+        // find the first series of the chart
+        CTAxDataSource categories = null;
+        CTNumDataSource numbers = null;
         if(!ctPlotArea.getPieChartList().isEmpty()) {
-            // get lists of values and categories (labels) of the pie chart
-            final List<CTNumVal> ptListVal = ctPlotArea.getPieChartList().get(0)
-                    .getSerList().get(0).getVal().getNumRef().getNumCache().getPtList();
-            final List<CTStrVal> ptListCat = ctPlotArea.getPieChartList().get(0)
-                    .getSerList().get(0).getCat().getStrRef().getStrCache().getPtList();
+            final CTPieSer series = ctPlotArea.getPieChartList().get(0).getSerList().get(0);
+            categories = series.getCat();
+            numbers = series.getVal();
+        } else if(!ctPlotArea.getBarChartList().isEmpty()) {
+            final CTBarSer series = ctPlotArea.getBarChartList().get(0).getSerList().get(0);
+            categories = series.getCat();
+            numbers = series.getVal();
+        } else if(!ctPlotArea.getLineChartList().isEmpty()) {
+            final CTLineSer series = ctPlotArea.getLineChartList().get(0).getSerList().get(0);
+            categories = series.getCat();
+            numbers = series.getVal();
+        }
+        // otherwise we do not support other type for now
+
+        if(categories != null && numbers != null) {
+            // get lists of values and categories (labels) of the chart
+            final CTStrData strCache = categories.getStrRef().getStrCache();
+            final CTNumData numCache = numbers.getNumRef().getNumCache();
+            final List<CTNumVal> ptListVal = numCache.getPtList();
+            final List<CTStrVal> ptListCat = strCache.getPtList();
 
             // clear what could be present before
             ptListCat.clear();
             ptListVal.clear();
 
-            // write resources in the pie chart
+            // write resources in the chart
             for (int i = 0 ; i < values.size() ; i++) {
                 // instantiate new label and value
                 final CTStrVal cat = CTStrVal.Factory.newInstance();
@@ -188,11 +249,16 @@ public class XWPFChartSpace {
                 ptListVal.add(val);
             }
 
-        }
-        // otherwise we do not support other type for now
+            // keep the number of points consistent with the new lists
+            if(strCache.isSetPtCount()) {
+                strCache.getPtCount().setVal(values.size());
+            }
+            if(numCache.isSetPtCount()) {
+                numCache.getPtCount().setVal(values.size());
+            }
 
-        // finally we save modifications
-        this.save();
+            this.dirty = true;
+        }
     }
 
 }
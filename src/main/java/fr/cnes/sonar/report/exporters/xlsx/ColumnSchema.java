@@ -0,0 +1,89 @@
+package fr.cnes.sonar.report.exporters.xlsx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columns of a sheet built from a list of maps: each key of the maps
+ * is given a column, in the order in which keys are first met
+ * @author lequal
+ */
+public final class ColumnSchema {
+
+    /**
+     * Headers of the columns, in display order
+     */
+    private final List<String> headers;
+    /**
+     * Index of each column, indexed by key
+     */
+    private final Map<String, Integer> indexes;
+
+    /**
+     * Compute the columns of a list of maps
+     * @param list list of maps whose keys are columns
+     */
+    public ColumnSchema(List<Map> list) {
+        final List<String> lHeaders = new ArrayList<>();
+        this.indexes = new HashMap<>();
+
+        // each new key is added at the end
+        for(Map<?, ?> map : list) {
+            for(Object key : map.keySet()) {
+                final String header = key.toString();
+                if(!indexes.containsKey(header)) {
+                    indexes.put(header, lHeaders.size());
+                    lHeaders.add(header);
+                }
+            }
+        }
+
+        this.headers = Collections.unmodifiableList(lHeaders);
+    }
+
+    /**
+     * Getter for headers
+     * @return unmodifiable list of headers, in display order
+     */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Give the number of columns
+     * @return number of columns
+     */
+    public int size() {
+        return headers.size();
+    }
+
+    /**
+     * Give the index of a key's column
+     * @param key key to find
+     * @return index of the column or -1 if the key is unknown
+     */
+    public int indexOf(String key) {
+        final Integer index = indexes.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Sort the values of a map as columns
+     * @param map map to convert
+     * @return values as string, null when the map has no value for a column
+     */
+    public List<String> toRow(Map<?, ?> map) {
+        final String[] content = new String[headers.size()];
+        for(Map.Entry<?, ?> entry : map.entrySet()) {
+            final int index = indexOf(entry.getKey().toString());
+            if(index >= 0 && entry.getValue() != null) {
+                content[index] = entry.getValue().toString();
+            }
+        }
+        return Arrays.asList(content);
+    }
+}
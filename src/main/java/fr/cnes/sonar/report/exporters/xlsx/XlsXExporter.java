@@ -3,7 +3,10 @@ package fr.cnes.sonar.report.exporters.xlsx;
 import fr.cnes.sonar.report.exceptions.BadExportationDataTypeException;
 import fr.cnes.sonar.report.exporters.IExporter;
 import fr.cnes.sonar.report.model.Report;
+import fr.cnes.sonar.report.utils.CloseShieldOutputStream;
+import fr.cnes.sonar.report.utils.StringManager;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
@@ -11,6 +14,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Exports the report in .docx format
@@ -59,44 +63,70 @@ public class XlsXExporter implements IExporter {
         if(!(data instanceof Report)) {
             throw new BadExportationDataTypeException();
         }
-        // resources casting
-        final Report report = (Report) data;
 
-        // set output filename
-        final String outputFilePath = path;
+        // write output as file
+        try(FileOutputStream fileOut = new FileOutputStream(path)) {
+            export((Report) data, fileOut, filename);
+        }
+
+        return new File(path);
+    }
 
+    /**
+     * Export a report's issues in xlsx format into a stream, which is not closed
+     * @param report Report to export
+     * @param output Stream receiving the workbook
+     * @param filename Name of the template file
+     * @throws IOException when reading a file
+     */
+    public void export(Report report, OutputStream output, String filename)
+            throws IOException {
         // open excel file from the path given in the parameters
         final File file = new File(filename);
 
+        // number of rows kept in memory, 0 to build the whole workbook in memory
+        final int window = Integer.parseInt(StringManager.getProperty(StringManager.XLSX_WINDOW));
+
         // open the template
         try(
                 FileInputStream excelFile = new FileInputStream(file);
-                Workbook workbook = new XSSFWorkbook(excelFile);
-                FileOutputStream fileOut = new FileOutputStream(outputFilePath)) {
-
-            // retrieve the sheet aiming to contain selected resources
-            final XSSFSheet selectedSheet = (XSSFSheet) workbook.getSheet(ISSUES_SHEET_NAME);
-
-            // retrieve the sheet aiming to contain selected resources
-            final XSSFSheet unconfirmedSheet = (XSSFSheet) workbook.getSheet(UNCONFIRMED_SHEET_NAME);
-
-            // retrieve the sheet aiming to contain selected resources
-            final XSSFSheet allDataSheet = (XSSFSheet) workbook.getSheet(ALL_DETAILS_SHEET_NAME);
-
-            // write selected resources in the file
-            XlsXTools.addSelectedData(report.getIssues(), selectedSheet, SELECTED_TABLE_NAME);
-
-            // write selected resources in the file
-            XlsXTools.addSelectedData(report.getUnconfirmed(), unconfirmedSheet, UNCONFIRMED_TABLE_NAME);
-
-            // write all raw resources in the third sheet
-            XlsXTools.addListOfMap(allDataSheet, report.getRawIssues(), ALL_TABLE_NAME);
-
-            // write output as file
-            workbook.write(fileOut);
+                XSSFWorkbook template = new XSSFWorkbook(excelFile)) {
+
+            // rows are written through a streaming view of the template
+            // whose rows are flushed to disk when the window is full
+            final Workbook workbook = window > 0 ? new SXSSFWorkbook(template, window) : template;
+
+            try {
+                // retrieve the sheet aiming to contain selected resources
+                final XSSFSheet selectedSheet = template.getSheet(ISSUES_SHEET_NAME);
+
+                // retrieve the sheet aiming to contain selected resources
+                final XSSFSheet unconfirmedSheet = template.getSheet(UNCONFIRMED_SHEET_NAME);
+
+                // retrieve the sheet aiming to contain selected resources
+                final XSSFSheet allDataSheet = template.getSheet(ALL_DETAILS_SHEET_NAME);
+
+                // write selected resources in the file
+                XlsXTools.addSelectedData(report.getIssues(), selectedSheet,
+                        workbook.getSheet(ISSUES_SHEET_NAME), SELECTED_TABLE_NAME);
+
+                // write selected resources in the file
+                XlsXTools.addSelectedData(report.getUnconfirmed(), unconfirmedSheet,
+                        workbook.getSheet(UNCONFIRMED_SHEET_NAME), UNCONFIRMED_TABLE_NAME);
+
+                // write all raw resources in the third sheet
+                XlsXTools.addListOfMap(allDataSheet, workbook.getSheet(ALL_DETAILS_SHEET_NAME),
+                        report.getRawIssues(), ALL_TABLE_NAME);
+
+                // write output, POI closes the stream it writes in
+                workbook.write(new CloseShieldOutputStream(output));
+            } finally {
+                // delete temporary files of flushed rows
+                if(workbook instanceof SXSSFWorkbook) {
+                    ((SXSSFWorkbook) workbook).dispose();
+                }
+            }
         }
-
-        return new File(outputFilePath);
     }
 
 }
@@ -1,6 +1,8 @@
 package fr.cnes.sonar.report.exporters.xlsx;
 
 import fr.cnes.sonar.report.model.Issue;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.usermodel.XSSFRow;
@@ -75,9 +77,23 @@ public final class XlsXTools {
      * @param tableName name of the table to fill out
      */
     public static void addListOfMap(XSSFSheet sheet, List<Map> list, String tableName) {
+        addListOfMap(sheet, sheet, list, tableName);
+    }
 
-        // get the headers list
-        final List<String> headers = extractHeader(list);
+    /**
+     * Add a list of Map in an excel sheet, the table and the header are set in
+     * the template's sheet whereas other rows are written in the data sheet
+     * @param sheet sheet containing the table to fill out
+     * @param dataSheet sheet where rows are written, can be a streaming view of sheet
+     * @param list list of map to put
+     * @param tableName name of the table to fill out
+     */
+    public static void addListOfMap(XSSFSheet sheet, Sheet dataSheet, List<Map> list,
+                                    String tableName) {
+
+        // get the columns, computed once for all rows
+        final ColumnSchema schema = new ColumnSchema(list);
+        final List<String> headers = schema.getHeaders();
 
         // Create an object of type XSSFTable containing the template table for selected resources
         final XSSFTable table = findTableByName(sheet, tableName);
@@ -111,25 +127,22 @@ public final class XlsXTools {
 
             // create the headers' row and add it to the sheet
             createRow(sheet, rowIndex, headers);
+            // name columns as the header, streamed rows are not read when saving the table
+            for (int i = 0; i < headers.size(); i++) {
+                columns.getTableColumnArray(i).setName(headers.get(i));
+            }
+            // remove template's rows which would be overwritten
+            removeRows(sheet, rowIndex + 1);
 
             // go to the first resources line
             rowIndex++;
-            String[] content;
             // we add a row for each map in the list
             for (Map<String, String> map : list) {
-                // will contain all the values sorted as needed to comply to the header
-                content = new String[headers.size()];
-                int index;
-                // adding each field of the map in a different column of the row
-                for (Map.Entry issue : map.entrySet()) {
-                    // index of the column to fill comparing key and headers
-                    index = headers.indexOf(issue.getKey().toString());
-                    // get the cell having the same key as the header
-                    content[index] = issue.getValue().toString();
-                }
+                // values sorted as needed to comply to the header
+                final List<String> content = schema.toRow(map);
 
                 // create a row from resources as string's list
-                createRow(sheet, rowIndex, Arrays.asList(content));
+                createRow(dataSheet, rowIndex, content);
                 // go to the next line
                 rowIndex++;
             }
@@ -142,23 +155,7 @@ public final class XlsXTools {
      * @return a list of strings
      */
     public static List<String> extractHeader(List<Map> list) {
-        // list of header titles to be returned
-        final List<String> result = new ArrayList<>();
-        // gather all unique keys of all maps
-        final Map<String, String> gatherer = new HashMap<>();
-
-        // we gather all the key thanks to the map
-        for(Map<String,String> map : list) {
-            gatherer.putAll(map);
-        }
-
-        // for each unique header
-        for(Map.Entry header : gatherer.entrySet()) {
-            // we had the key to the list
-            result.add(header.getKey().toString());
-        }
-
-        return result;
+        return new ArrayList<>(new ColumnSchema(list).getHeaders());
     }
 
     /**
@@ -169,8 +166,19 @@ public final class XlsXTools {
      * @return return the created row as a XSSFRow
      */
     public static XSSFRow createRow(XSSFSheet sheet, int index, List<String> list) {
+        return (XSSFRow) createRow((Sheet) sheet, index, list);
+    }
+
+    /**
+     * Create a row from a list of strings in any kind of sheet
+     * @param sheet Sheet to fill out
+     * @param index Index of the row to create
+     * @param list resources to fill out the row
+     * @return return the created row
+     */
+    public static Row createRow(Sheet sheet, int index, List<String> list) {
         // create a new row from the context, it will be returned
-        final XSSFRow row = sheet.createRow(index);
+        final Row row = sheet.createRow(index);
 
         // index on the columns of the row
         int colIndex = 0;
@@ -193,6 +201,20 @@ public final class XlsXTools {
         return row;
     }
 
+    /**
+     * Remove all rows of a sheet from a given index
+     * @param sheet sheet to clean
+     * @param firstIndex index of the first row to remove
+     */
+    private static void removeRows(XSSFSheet sheet, int firstIndex) {
+        for(int i = sheet.getLastRowNum(); i >= firstIndex; i--) {
+            final XSSFRow row = sheet.getRow(i);
+            if(row != null) {
+                sheet.removeRow(row);
+            }
+        }
+    }
+
     /**
      * Write the formatted resources as wanted in the corresponding sheet
      * @param issues Intern resources to format to excel
@@ -201,6 +223,19 @@ public final class XlsXTools {
      */
     public static void addSelectedData(List<Issue> issues, XSSFSheet selectedSheet,
                                        String selectedTableName) {
+        addSelectedData(issues, selectedSheet, selectedSheet, selectedTableName);
+    }
+
+    /**
+     * Write the formatted resources as wanted in the corresponding sheet, the table
+     * is set in the template's sheet whereas rows are written in the data sheet
+     * @param issues Intern resources to format to excel
+     * @param selectedSheet sheet containing the table to fill
+     * @param dataSheet sheet where rows are written, can be a streaming view of selectedSheet
+     * @param selectedTableName Name of the table to fill
+     */
+    public static void addSelectedData(List<Issue> issues, XSSFSheet selectedSheet,
+                                       Sheet dataSheet, String selectedTableName) {
 
         // Create an object of type XSSFTable containing the template table for selected resources
         final XSSFTable selectedTable = findTableByName(selectedSheet, selectedTableName);
@@ -221,10 +256,13 @@ public final class XlsXTools {
             // number of the row to insert, begin to 1 because 0 is the header
             int numRow = 1;
 
+            // remove template's rows which would be overwritten
+            removeRows(selectedSheet, numRow);
+
             // add issues
             for (Issue issue : issues) {
                 // initialization of a new row
-                final XSSFRow row = selectedSheet.createRow(numRow);
+                final Row row = dataSheet.createRow(numRow);
 
                 // adding resources
                 row.createCell(RULE_ID_INDEX).setCellValue(issue.getRule());
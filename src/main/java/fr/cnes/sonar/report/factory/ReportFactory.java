@@ -19,10 +19,18 @@ package fr.cnes.sonar.report.factory;
 
 import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
 import fr.cnes.sonar.report.exceptions.UnknownQualityGateException;
-import fr.cnes.sonar.report.model.Report;
+import fr.cnes.sonar.report.model.*;
 import fr.cnes.sonar.report.providers.*;
+import fr.cnes.sonar.report.utils.StringManager;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Construct  the report from resources providers
@@ -50,6 +58,10 @@ public class ReportFactory {
      * Date of the reporting.
      */
     private String date;
+    /**
+     * Previous report of the project, null to download all resources.
+     */
+    private Report previousReport;
 
     /**
      * Complete constructor
@@ -67,8 +79,19 @@ public class ReportFactory {
         this.date = pDate;
     }
 
+    /**
+     * Set the previous report of the project: its issues are updated
+     * with the ones changed since then instead of being downloaded again
+     * @param pPreviousReport previous report, null to download all issues
+     */
+    public void setPreviousReport(final Report pPreviousReport) {
+        this.previousReport = pPreviousReport;
+    }
+
     /**
      * Create a report from program resources
+     * Independent resources are requested concurrently, using at most
+     * REPORT_THREADS threads
      * @return A complete report resources model
      * @throws IOException on json problem
      * @throws BadSonarQubeRequestException when a request to the server is not well-formed
@@ -86,30 +109,131 @@ public class ReportFactory {
         final QualityGateProvider qualityGateProvider = new QualityGateProvider(this.url, this.token, this.project);
         final LanguageProvider languageProvider = new LanguageProvider(this.url, this.token, this.project);
 
-        // author's setting
-        report.setProjectAuthor(author);
-        // date setting
-        report.setProjectDate(date);
-        // measures's setting
-        report.setMeasures(measureProvider.getMeasures());
-        // set report basic data
-        report.setProject(projectProvider.getProject(projectProvider.getProjectKey()));
-        // project's name's setting
-        report.setProjectName(report.getProject().getName());
-        // formatted issues, unconfirmed issues and raw issues' setting
-        report.setIssues(issuesProvider.getIssues());
-        report.setUnconfirmed(issuesProvider.getUnconfirmedIssues());
-        report.setRawIssues(issuesProvider.getRawIssues());
-        // facets's setting
-        report.setFacets(issuesProvider.getFacets());
-        // quality profile's setting
-        report.setQualityProfiles(qualityProfileProvider.getQualityProfiles());
-        // quality gate's setting
-        report.setQualityGate(qualityGateProvider.getProjectQualityGate());
-        // languages' settings
-        report.getProject().setLanguages(languageProvider.getLanguages());
+        // only issues changed since the previous report are requested
+        if(previousReport != null) {
+            issuesProvider.setPreviousIssues(previousReport.getIssues(),
+                    previousReport.getUnconfirmed(), previousReport.getRawIssues());
+        }
+
+        // threads used to request all resources
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Integer.parseInt(StringManager.getProperty(StringManager.REPORT_THREADS)));
+
+        try {
+            // launch all independent requests
+            final CompletableFuture<List<Measure>> measures =
+                    fetch(executor, measureProvider::getMeasures);
+            final CompletableFuture<Project> projectData =
+                    fetch(executor, () -> projectProvider.getProject(projectProvider.getProjectKey()));
+            final CompletableFuture<Map<String, Language>> languages =
+                    fetch(executor, languageProvider::getLanguages);
+            final CompletableFuture<List<Issue>> issues =
+                    fetch(executor, issuesProvider::getIssues);
+            final CompletableFuture<List<Issue>> unconfirmed =
+                    fetch(executor, issuesProvider::getUnconfirmedIssues);
+            // raw issues are downloaded with confirmed issues, just wait for them
+            final CompletableFuture<List<Map>> rawIssues = issues.thenCompose(
+                downloaded -> fetch(executor, issuesProvider::getRawIssues));
+            final CompletableFuture<List<Facet>> facets =
+                    fetch(executor, issuesProvider::getFacets);
+            final CompletableFuture<List<QualityProfile>> qualityProfiles =
+                    fetch(executor, qualityProfileProvider::getQualityProfiles);
+            final CompletableFuture<QualityGate> qualityGate =
+                    fetch(executor, qualityGateProvider::getProjectQualityGate);
+
+            // languages' settings, as soon as project and languages are both available
+            final CompletableFuture<Project> projectWithLanguages = projectData.thenCombine(languages,
+                (project, languagesMap) -> {
+                    project.setLanguages(languagesMap);
+                    return project;
+                });
+
+            // author's setting
+            report.setProjectAuthor(author);
+            // date setting
+            report.setProjectDate(date);
+            // measures's setting
+            report.setMeasures(join(measures));
+            // set report basic data
+            report.setProject(join(projectWithLanguages));
+            // project's name's setting
+            report.setProjectName(report.getProject().getName());
+            // formatted issues, unconfirmed issues and raw issues' setting
+            report.setIssues(join(issues));
+            report.setUnconfirmed(join(unconfirmed));
+            report.setRawIssues(join(rawIssues));
+            // facets's setting
+            report.setFacets(join(facets));
+            // quality profile's setting
+            report.setQualityProfiles(join(qualityProfiles));
+            // quality gate's setting
+            report.setQualityGate(join(qualityGate));
+        } finally {
+            executor.shutdownNow();
+        }
 
         return report;
     }
 
+    /**
+     * Launch asynchronously the request of a resource
+     * @param executor threads to use
+     * @param resource resource to request
+     * @param <T> type of the resource
+     * @return the future resource, completed exceptionally if the request failed
+     */
+    private static <T> CompletableFuture<T> fetch(final Executor executor, final Resource<T> resource) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return resource.get();
+            } catch (IOException | BadSonarQubeRequestException | UnknownQualityGateException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Wait for a resource and rethrow the exception which prevented to get it
+     * @param future resource to wait for
+     * @param <T> type of the resource
+     * @return the resource
+     * @throws IOException on json problem
+     * @throws BadSonarQubeRequestException when a request to the server is not well-formed
+     * @throws UnknownQualityGateException a quality gate is not correct
+     */
+    private static <T> T join(final CompletableFuture<T> future)
+            throws IOException, BadSonarQubeRequestException, UnknownQualityGateException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof BadSonarQubeRequestException) {
+                throw (BadSonarQubeRequestException) cause;
+            } else if(cause instanceof UnknownQualityGateException) {
+                throw (UnknownQualityGateException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Resource requested to SonarQube by a provider
+     * @param <T> type of the resource
+     */
+    @FunctionalInterface
+    private interface Resource<T> {
+        /**
+         * Request the resource
+         * @return the resource
+         * @throws IOException on json problem
+         * @throws BadSonarQubeRequestException when a request to the server is not well-formed
+         * @throws UnknownQualityGateException a quality gate is not correct
+         */
+        T get() throws IOException, BadSonarQubeRequestException, UnknownQualityGateException;
+    }
+
 }
@@ -0,0 +1,172 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.factory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import fr.cnes.sonar.report.model.Issue;
+import fr.cnes.sonar.report.model.Report;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Store the issues of the last report of a project on disk so that the next
+ * one can be built incrementally: only what the merge of updated issues
+ * needs is kept, profiles, gate and measures are always downloaded again
+ * @author lequal
+ */
+public final class ReportSnapshot {
+
+    /**
+     * Pattern of the snapshot's path: report's folder and project's key
+     */
+    private static final String SNAPSHOT_PATTERN = "%s/snapshot/%s.json";
+    /**
+     * Characters which cannot be used in a filename
+     */
+    private static final String FORBIDDEN_CHARACTERS = "[^A-Za-z0-9._-]";
+    /**
+     * Replacement of forbidden characters
+     */
+    private static final String UNDERSCORE = "_";
+    /**
+     * Extension of the snapshot while it is written
+     */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    /**
+     * Message logged when a snapshot cannot be read
+     */
+    private static final String UNREADABLE_SNAPSHOT_MESSAGE =
+            "Snapshot %s cannot be read, a full report is generated: %s";
+    /**
+     * Logger of this class
+     */
+    private static final Logger LOGGER = Logger.getLogger(ReportSnapshot.class.getName());
+
+    /**
+     * Tool for serializing reports
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Private constructor to forbid instantiation of this class
+     */
+    private ReportSnapshot() {}
+
+    /**
+     * Give the file containing the snapshot of a project
+     * @param reportPath folder where reports are written
+     * @param project key of the project
+     * @return the snapshot's file, which can not exist
+     */
+    public static File getFile(final String reportPath, final String project) {
+        return new File(String.format(SNAPSHOT_PATTERN, reportPath, toFileName(project)));
+    }
+
+    /**
+     * Turn a project's key into a name usable for files and folders
+     * @param project key of the project
+     * @return the key where forbidden characters are replaced
+     */
+    public static String toFileName(final String project) {
+        return project.replaceAll(FORBIDDEN_CHARACTERS, UNDERSCORE);
+    }
+
+    /**
+     * Read a snapshot
+     * @param file file containing the snapshot
+     * @return a report containing only the previous issues, built through its setters,
+     * or null if there is no readable snapshot
+     */
+    public static Report load(final File file) {
+        Report report = null;
+        if(file.isFile()) {
+            try(Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                final Content content = GSON.fromJson(reader, Content.class);
+                // a snapshot missing a list of issues can not be updated
+                if(content != null && content.issues != null && content.unconfirmed != null
+                        && content.rawIssues != null) {
+                    report = new Report();
+                    report.setIssues(content.issues);
+                    report.setUnconfirmed(content.unconfirmed);
+                    report.setRawIssues(content.rawIssues);
+                }
+            } catch (IOException | JsonParseException e) {
+                LOGGER.warning(String.format(UNREADABLE_SNAPSHOT_MESSAGE, file.getPath(), e.getMessage()));
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Write the issues of a report as a snapshot, replacing the previous one
+     * @param report report to save
+     * @param file file which will contain the snapshot
+     * @throws IOException when writing the file
+     */
+    public static void save(final Report report, final File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        // written next to the snapshot then moved, to never leave a partial snapshot
+        final File temporary = new File(file.getPath() + TEMPORARY_EXTENSION);
+        try(Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8)) {
+            GSON.toJson(new Content(report), writer);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Part of a report stored in a snapshot, with the names of Report's fields
+     */
+    private static final class Content {
+        /**
+         * Confirmed issues, with their date of last update
+         */
+        private final List<Issue> issues;
+        /**
+         * Unconfirmed issues, with their date of last update
+         */
+        private final List<Issue> unconfirmed;
+        /**
+         * Raw issues as sent by SonarQube
+         */
+        private final List<Map> rawIssues;
+
+        /**
+         * Constructor copying the issues of a report
+         * @param report report to store
+         */
+        private Content(final Report report) {
+            this.issues = report.getIssues();
+            this.unconfirmed = report.getUnconfirmed();
+            this.rawIssues = report.getRawIssues();
+        }
+    }
+}
@@ -76,6 +76,10 @@ public class Issue {
      * Issue's programming language
      */
     private String language;
+    /**
+     * Date of the issue's last update
+     */
+    private String updateDate;
 
     /**
      * Default constructor
@@ -93,6 +97,7 @@ public class Issue {
         this.type = "";
         this.effort = "0";
         this.language = "";
+        this.updateDate = "";
     }
 
     /**
@@ -316,4 +321,20 @@ public class Issue {
     public void setLanguage(String pLanguage) {
         this.language = pLanguage;
     }
+
+    /**
+     * Getter for updateDate
+     * @return updateDate
+     */
+    public String getUpdateDate() {
+        return updateDate;
+    }
+
+    /**
+     * Setter for updateDate
+     * @param pUpdateDate value
+     */
+    public void setUpdateDate(String pUpdateDate) {
+        this.updateDate = pUpdateDate;
+    }
 }
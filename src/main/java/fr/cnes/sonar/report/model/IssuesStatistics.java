@@ -0,0 +1,202 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts of issues computed in a single pass over a list of issues:
+ * by type and severity, by language, by rule and by directory
+ * @author lequal
+ */
+public class IssuesStatistics {
+
+    /**
+     * List of possible issue types
+     */
+    private static final String[] ISSUE_TYPES = {"VULNERABILITY", "BUG", "CODE_SMELL"};
+    /**
+     * List of possible issue severities
+     */
+    private static final String[] ISSUE_SEVERITIES = {
+        "BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO"
+    };
+    /**
+     * Index of each type in ISSUE_TYPES
+     */
+    private static final Map<String, Integer> TYPES_INDEX = index(ISSUE_TYPES);
+    /**
+     * Index of each severity in ISSUE_SEVERITIES
+     */
+    private static final Map<String, Integer> SEVERITIES_INDEX = index(ISSUE_SEVERITIES);
+    /**
+     * Separator between directories in a component's path
+     */
+    private static final char PATH_SEPARATOR = '/';
+    /**
+     * Separator between project and path in a component's key
+     */
+    private static final char PROJECT_SEPARATOR = ':';
+
+    /**
+     * Number of issues indexed by type then by severity
+     */
+    private final long[][] typesSeverities;
+    /**
+     * Number of issues by language's name
+     */
+    private final Map<String, Long> languages;
+    /**
+     * Number of issues by rule's key
+     */
+    private final Map<String, Long> rules;
+    /**
+     * Number of issues by directory (component without file name)
+     */
+    private final Map<String, Long> directories;
+
+    /**
+     * Compute all statistics by browsing issues once
+     * @param pIssues issues to count
+     */
+    public IssuesStatistics(List<Issue> pIssues) {
+        this.typesSeverities = new long[ISSUE_TYPES.length][ISSUE_SEVERITIES.length];
+        final Map<String, Long> lLanguages = new HashMap<>();
+        final Map<String, Long> lRules = new HashMap<>();
+        final Map<String, Long> lDirectories = new HashMap<>();
+
+        for(Issue issue : pIssues) {
+            // unknown types and severities are not counted in the matrix
+            final Integer type = TYPES_INDEX.get(issue.getType());
+            final Integer severity = SEVERITIES_INDEX.get(issue.getSeverity());
+            if(type != null && severity != null) {
+                typesSeverities[type][severity]++;
+            }
+            increment(lLanguages, issue.getLanguage());
+            increment(lRules, issue.getRule());
+            increment(lDirectories, getDirectory(issue.getComponent()));
+        }
+
+        this.languages = Collections.unmodifiableMap(lLanguages);
+        this.rules = Collections.unmodifiableMap(lRules);
+        this.directories = Collections.unmodifiableMap(lDirectories);
+    }
+
+    /**
+     * Getter for the list of known types, in display order
+     * @return a copy of types
+     */
+    public static String[] getTypes() {
+        return ISSUE_TYPES.clone();
+    }
+
+    /**
+     * Getter for the list of known severities, in display order
+     * @return a copy of severities
+     */
+    public static String[] getSeverities() {
+        return ISSUE_SEVERITIES.clone();
+    }
+
+    /**
+     * Give the number of issues with a type and a severity
+     * @param type type of issues
+     * @param severity severity of issues
+     * @return number of issues, 0 if type or severity is unknown
+     */
+    public long count(String type, String severity) {
+        final Integer typeIndex = TYPES_INDEX.get(type);
+        final Integer severityIndex = SEVERITIES_INDEX.get(severity);
+        long result = 0;
+        if(typeIndex != null && severityIndex != null) {
+            result = typesSeverities[typeIndex][severityIndex];
+        }
+        return result;
+    }
+
+    /**
+     * Getter for languages
+     * @return unmodifiable number of issues by language
+     */
+    public Map<String, Long> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * Getter for rules
+     * @return unmodifiable number of issues by rule
+     */
+    public Map<String, Long> getRules() {
+        return rules;
+    }
+
+    /**
+     * Getter for directories
+     * @return unmodifiable number of issues by directory
+     */
+    public Map<String, Long> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Extract the directory from a component like project:path/to/file
+     * @param component key of the component
+     * @return the component without the file name, the project for files at its root
+     * or null if component is null
+     */
+    private static String getDirectory(String component) {
+        String directory = component;
+        if(component != null) {
+            int end = component.lastIndexOf(PATH_SEPARATOR);
+            if(end < 0) {
+                end = component.indexOf(PROJECT_SEPARATOR);
+            }
+            if(end >= 0) {
+                directory = component.substring(0, end);
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Increment the counter of a key, ignore null keys
+     * @param counters map to update
+     * @param key key of the counter
+     */
+    private static void increment(Map<String, Long> counters, String key) {
+        if(key != null) {
+            counters.merge(key, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Give the position of each value of an array
+     * @param values array to index
+     * @return map of positions indexed by value
+     */
+    private static Map<String, Integer> index(String[] values) {
+        final Map<String, Integer> result = new HashMap<>();
+        for(int i = 0; i < values.length; i++) {
+            result.put(values[i], i);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -48,6 +48,10 @@ public class ProfileMetaData {
      * is this profile the default one
      */
     private boolean isDefault;
+    /**
+     * date of the last change of the profile's rules
+     */
+    private String rulesUpdatedAt;
     /**
      * how many deprecated rules it contains
      */
@@ -172,4 +176,20 @@ public class ProfileMetaData {
     public void setDeprecatedRules(int pDeprecatedRules) {
         this.deprecatedRules = pDeprecatedRules;
     }
+
+    /**
+     * Getter for the date of the last change of rules
+     * @return the date as given by sonarqube, can be null
+     */
+    public String getRulesUpdatedAt() {
+        return rulesUpdatedAt;
+    }
+
+    /**
+     * Setter for the date of the last change of rules
+     * @param pRulesUpdatedAt date as given by sonarqube
+     */
+    public void setRulesUpdatedAt(String pRulesUpdatedAt) {
+        this.rulesUpdatedAt = pRulesUpdatedAt;
+    }
 }
@@ -18,6 +18,7 @@
 package fr.cnes.sonar.report.model;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Contain all Quality Profile's details
@@ -87,6 +88,14 @@ public class QualityProfile {
         return metaData.getKey();
     }
 
+    /**
+     * Getter for rules
+     * @return rules of the profile
+     */
+    public List<Rule> getRules() {
+        return data.getRules();
+    }
+
     /**
      * Find a rule with its key
      * @param key key of the rule
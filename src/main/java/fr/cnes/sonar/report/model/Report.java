@@ -23,6 +23,10 @@ import java.util.*;
 
 /**
  * Model of a report containing all information
+ *
+ * Lists are copied once when they are set and exposed as
+ * unmodifiable views, so getters can be called freely.
+ *
  * @author lequal
  */
 public class Report {
@@ -70,6 +74,14 @@ public class Report {
      * List of unconfirmed issues in the project like false positives and wont fix
      */
     private List<Issue> unconfirmed;
+    /**
+     * Rules of all quality profiles indexed by key, built on first use
+     */
+    private transient volatile Map<String, Rule> rulesIndex;
+    /**
+     * Counts of issues, computed on first use
+     */
+    private transient volatile IssuesStatistics issuesStatistics;
 
     /**
      * Default constructor
@@ -78,50 +90,44 @@ public class Report {
         this.projectName = "";
         this.projectAuthor = "";
         this.projectDate = "";
-        this.qualityProfiles = new ArrayList<>();
+        this.qualityProfiles = Collections.emptyList();
         this.qualityGate = new QualityGate();
-        this.issues = new ArrayList<>();
-        this.unconfirmed = new ArrayList<>();
-        this.facets = new ArrayList<>();
-        this.measures = new ArrayList<>();
-        this.rawIssues = new ArrayList<>();
+        this.issues = Collections.emptyList();
+        this.unconfirmed = Collections.emptyList();
+        this.facets = Collections.emptyList();
+        this.measures = Collections.emptyList();
+        this.rawIssues = Collections.emptyList();
         this.project = new Project(StringManager.EMPTY, StringManager.EMPTY,
                 StringManager.EMPTY,StringManager.EMPTY);
     }
 
     /**
-     * Get number of issues by issue
-     * @return issues
+     * Get number of issues by rule
+     * @return unmodifiable map of number of issues indexed by rule's key
      */
     public Map<String, Long> getIssuesFacets() {
-        // returned map containing issues key/number of issues
-        final Map<String, Long> lFacets = new HashMap<>();
-        // collect issues' occurrences number
-        long counter;
-        // collect the rule's id for each issue
-        String rule;
-
-        // we browse all the issues and for each issue,
-        // if it is known then we increment its counter
-        // otherwise we add it to the map
-        for(Issue issue : getIssues()) {
-            rule = issue.getRule();
-            counter = 1;
-            if(lFacets.containsKey(rule)) {
-                counter = lFacets.get(rule) + 1;
-            }
-            lFacets.put(rule, counter);
-        }
+        return getIssuesStatistics().getRules();
+    }
 
-        return lFacets;
+    /**
+     * Get counts of issues by type and severity, language, rule and directory
+     * @return statistics computed in a single pass over issues
+     */
+    public IssuesStatistics getIssuesStatistics() {
+        IssuesStatistics statistics = issuesStatistics;
+        if(statistics == null) {
+            statistics = new IssuesStatistics(issues);
+            issuesStatistics = statistics;
+        }
+        return statistics;
     }
 
     /**
      * Get issues
-     * @return issues
+     * @return unmodifiable issues
      */
     public List<Issue> getIssues() {
-        return new ArrayList<>(issues);
+        return issues;
     }
 
     /**
@@ -129,7 +135,9 @@ public class Report {
      * @param pIssues value
      */
     public void setIssues(List<Issue> pIssues) {
-        this.issues = new ArrayList<>(pIssues);
+        this.issues = Collections.unmodifiableList(new ArrayList<>(pIssues));
+        // statistics must be computed again with new issues
+        this.issuesStatistics = null;
     }
 
     /**
@@ -182,10 +190,10 @@ public class Report {
 
     /**
      * Getter for qualityProfiles
-     * @return qualityProfiles
+     * @return unmodifiable qualityProfiles
      */
     public List<QualityProfile> getQualityProfiles() {
-        return new ArrayList<>(qualityProfiles);
+        return qualityProfiles;
     }
 
     /**
@@ -193,7 +201,9 @@ public class Report {
      * @param pQualityProfiles value
      */
     public void setQualityProfiles(List<QualityProfile> pQualityProfiles) {
-        this.qualityProfiles = new ArrayList<>(pQualityProfiles);
+        this.qualityProfiles = Collections.unmodifiableList(new ArrayList<>(pQualityProfiles));
+        // index must be built again with new profiles
+        this.rulesIndex = null;
     }
 
     /**
@@ -214,10 +224,10 @@ public class Report {
 
     /**
      * Getter for measures
-     * @return measures
+     * @return unmodifiable measures
      */
     public List<Measure> getMeasures() {
-        return new ArrayList<>(measures);
+        return measures;
     }
 
     /**
@@ -225,15 +235,15 @@ public class Report {
      * @param pMeasures value
      */
     public void setMeasures(List<Measure> pMeasures) {
-        this.measures = new ArrayList<>(pMeasures);
+        this.measures = Collections.unmodifiableList(new ArrayList<>(pMeasures));
     }
 
     /**
      * Getter for facets
-     * @return facets
+     * @return unmodifiable facets
      */
     public List<Facet> getFacets() {
-        return new ArrayList<>(facets);
+        return facets;
     }
 
     /**
@@ -241,7 +251,7 @@ public class Report {
      * @param pFacets value
      */
     public void setFacets(List<Facet> pFacets) {
-        this.facets = new ArrayList<>(pFacets);
+        this.facets = Collections.unmodifiableList(new ArrayList<>(pFacets));
     }
 
     /**
@@ -284,31 +294,35 @@ public class Report {
      * @return the rule or null if not found
      */
     public Rule getRule(String pKey) {
-        // result initialization
-        Rule rule = null;
-
-        // browse all quality profile
-        final Iterator<QualityProfile> iterator = getQualityProfiles().iterator();
-        QualityProfile qp;
-
-        // search for the rule with the asking key
-        while(iterator.hasNext() && rule==null) {
-            // get next profile
-            qp = iterator.next();
-            // check if the rule is in this profile
-            rule = qp.find(pKey);
-        }
+        return getRulesIndex().get(pKey);
+    }
 
-        // return the found rule, can be null
-        return rule;
+    /**
+     * Get the index of all rules of quality profiles, build it if necessary
+     * @return an immutable map of rules indexed by key
+     */
+    private Map<String, Rule> getRulesIndex() {
+        Map<String, Rule> index = rulesIndex;
+        if(index == null) {
+            final Map<String, Rule> rules = new HashMap<>();
+            // if a rule is in several profiles, the first one is kept
+            for(QualityProfile qp : qualityProfiles) {
+                for(Rule rule : qp.getRules()) {
+                    rules.putIfAbsent(rule.getKey(), rule);
+                }
+            }
+            index = Collections.unmodifiableMap(rules);
+            rulesIndex = index;
+        }
+        return index;
     }
 
     /**
      * Get a list of map representing issues
-     * @return return the raw issues' list
+     * @return return the unmodifiable raw issues' list
      */
     public List<Map> getRawIssues() {
-        return new ArrayList<>(rawIssues);
+        return rawIssues;
     }
 
     /**
@@ -316,7 +330,7 @@ public class Report {
      * @param pRawIssues list of map
      */
     public void setRawIssues(List<Map> pRawIssues) {
-        this.rawIssues = new ArrayList<>(pRawIssues);
+        this.rawIssues = Collections.unmodifiableList(new ArrayList<>(pRawIssues));
     }
 
     /**
@@ -354,10 +368,10 @@ public class Report {
 
     /**
      * Getter for unconfirmed
-     * @return issues
+     * @return unmodifiable issues
      */
     public List<Issue> getUnconfirmed() {
-        return new ArrayList<>(unconfirmed);
+        return unconfirmed;
     }
 
     /**
@@ -365,6 +379,6 @@ public class Report {
      * @param pIssues value
      */
     public void setUnconfirmed(List<Issue> pIssues) {
-        this.unconfirmed = new ArrayList<>(pIssues);
+        this.unconfirmed = Collections.unmodifiableList(new ArrayList<>(pIssues));
     }
 }
@@ -16,6 +16,7 @@
  */
 package fr.cnes.sonar.report.plugin;
 
+import fr.cnes.sonar.report.plugin.tasks.ReportJobManager;
 import fr.cnes.sonar.report.plugin.web.CnesPluginPageDefinition;
 import fr.cnes.sonar.report.plugin.ws.CnesWs;
 import org.sonar.api.Plugin;
@@ -35,6 +36,8 @@ public class CnesReportPlugin implements Plugin {
      */
     @Override
     public void define(final Context context) {
+        // reports generated in background, started and stopped with the server
+        context.addExtension(ReportJobManager.class);
         // report web service extension
         context.addExtension(CnesWs.class);
 
@@ -0,0 +1,114 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.report.plugin.tasks;
+
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonarqube.ws.MediaTypes;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Send the archive of a finished report job
+ * @author lequal
+ */
+public class DownloadReportTask implements RequestHandler {
+
+    /**
+     * Error message when a job is not finished
+     */
+    private static final String NOT_READY = "Report job %s is not ready: %s";
+
+    /**
+     * Jobs of the plugin
+     */
+    private final ReportJobManager manager;
+
+    /**
+     * Complete constructor
+     * @param pManager jobs of the plugin
+     */
+    public DownloadReportTask(final ReportJobManager pManager) {
+        this.manager = pManager;
+    }
+
+    /**
+     * Send the archive of the requested job
+     * @param request request containing the job's identifier
+     * @param response response containing the archive
+     * @throws IOException when the archive cannot be read
+     * @throws IllegalArgumentException when the job is unknown or not done
+     */
+    @Override
+    public void handle(final Request request, final Response response) throws IOException {
+        final ReportJob job = ReportStatusTask.findJob(manager,
+                request.mandatoryParam(ReportStatusTask.ID));
+        if(job.getStatus() != ReportJob.Status.DONE) {
+            throw new IllegalArgumentException(String.format(NOT_READY, job.getId(),
+                    job.getStatus().name()));
+        }
+        // the archive cannot be purged while it is sent
+        if(!job.acquire()) {
+            throw new IllegalArgumentException(String.format(ReportStatusTask.UNKNOWN_JOB, job.getId()));
+        }
+        try(InputStream input = new FileInputStream(job.getArchive())) {
+            sendFile(response, input, job.getArchive().getName());
+        } finally {
+            job.release();
+        }
+    }
+
+    /**
+     * Copy a stream into another one.
+     * @param in InputStream to copy (source).
+     * @param out OutputStream (destination).
+     * @throws IOException When an error occurs on copy.
+     */
+    private static void writeStream(final InputStream in, final OutputStream out) throws IOException {
+        IOUtils.copy(in, out);
+    }
+
+    /**
+     * Send back a file on the response of a web api action.
+     * @param response Response in which join a file.
+     * @param input File to return.
+     * @param filename Name to give to the attachment on client side.
+     * @throws IOException When the file cannot be sent, the download then fails.
+     */
+    private static void sendFile(final Response response, final InputStream input,
+                                 final String filename) throws IOException {
+        // We write directly in the response output stream rather than in the SQ response.
+        Response.Stream stream = response.stream();
+        // try-with-resources to auto-close streams in case of exception
+        try ( OutputStream output = response.stream().output() ) {
+
+            // we select content type with the filename's extension,
+            // if unknown then default type is "application/octet-stream"
+            stream.setMediaType(MediaTypes.getByFilename(filename));
+            // data are declared as attachment with a specific name
+            response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+            // copy utils stream in output one
+            writeStream(input, output);
+
+        }
+    }
+}
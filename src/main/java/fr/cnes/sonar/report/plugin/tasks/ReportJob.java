@@ -0,0 +1,255 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.report.plugin.tasks;
+
+import fr.cnes.sonar.report.model.Report;
+import fr.cnes.sonar.report.utils.StringManager;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Generation of a report in the background, its archive can be
+ * downloaded once it is done
+ * @author lequal
+ */
+public class ReportJob implements Runnable {
+
+    /**
+     * Steps of a job's life
+     */
+    public enum Status {
+        /**
+         * Waiting for a free worker
+         */
+        PENDING,
+        /**
+         * Being generated
+         */
+        RUNNING,
+        /**
+         * Archive ready to be downloaded
+         */
+        DONE,
+        /**
+         * Generation stopped by an error
+         */
+        FAILED
+    }
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(ReportJob.class);
+    /**
+     * Message logged when a job failed
+     */
+    private static final String FAILURE_MESSAGE = "Report job %s of %s failed: %s";
+
+    /**
+     * Identifier of the job
+     */
+    private final String id;
+    /**
+     * Key of the project to report
+     */
+    private final String projectKey;
+    /**
+     * Author of the report
+     */
+    private final String author;
+    /**
+     * Folder containing the generated files
+     */
+    private final File folder;
+    /**
+     * Current step of the job
+     */
+    private volatile Status status;
+    /**
+     * Error which stopped the job, null otherwise
+     */
+    private volatile String message;
+    /**
+     * Date (in milliseconds) of the end of the job, 0 while not finished
+     */
+    private volatile long finishedAt;
+    /**
+     * Date (in milliseconds) of the last request about the job
+     */
+    private long lastAccess;
+    /**
+     * Number of downloads of the archive in progress
+     */
+    private int downloads;
+    /**
+     * True once the files of the job are deleted
+     */
+    private boolean deleted;
+
+    /**
+     * Complete constructor
+     * @param pId identifier of the job
+     * @param pProjectKey key of the project to report
+     * @param pAuthor author of the report
+     * @param pFolder folder containing the generated files
+     */
+    public ReportJob(final String pId, final String pProjectKey, final String pAuthor,
+                     final File pFolder) {
+        this.id = pId;
+        this.projectKey = pProjectKey;
+        this.author = pAuthor;
+        this.folder = pFolder;
+        this.status = Status.PENDING;
+    }
+
+    /**
+     * Generate the report and pack it into an archive
+     */
+    @Override
+    public void run() {
+        status = Status.RUNNING;
+        try {
+            final Report report = ReportTask.createReport(projectKey, author);
+            // files are zipped while they are generated
+            try(OutputStream output = new FileOutputStream(getArchive())) {
+                ReportTask.writeArchive(report, output,
+                        ReportTask.REPORT_TEMPLATE, ReportTask.ISSUES_TEMPLATE);
+            }
+            status = Status.DONE;
+        } catch (Exception e) {
+            // any error must be reported to the user polling the job
+            message = StringManager.describe(e);
+            status = Status.FAILED;
+            LOGGER.error(String.format(FAILURE_MESSAGE, id, projectKey, message), e);
+        } finally {
+            finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Record a request about the job, its retention starts again from now
+     */
+    synchronized void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Start a download of the archive, which prevents its deletion until released
+     * @return false if the files are already deleted
+     */
+    public synchronized boolean acquire() {
+        if(!deleted) {
+            downloads++;
+            lastAccess = System.currentTimeMillis();
+        }
+        return !deleted;
+    }
+
+    /**
+     * End a download started by acquire()
+     */
+    public synchronized void release() {
+        downloads--;
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Delete the files of a job finished and not used for longer than the retention,
+     * a job being downloaded is never deleted
+     * @param now current date in milliseconds
+     * @param retention time (in milliseconds) during which a job is kept after its last use
+     * @return true if the job has been deleted
+     */
+    synchronized boolean deleteIfExpired(final long now, final long retention) {
+        final boolean expired = finishedAt > 0 && downloads == 0
+                && now - Math.max(finishedAt, lastAccess) > retention;
+        if(expired) {
+            delete();
+        }
+        return expired;
+    }
+
+    /**
+     * Delete the generated files
+     */
+    synchronized void delete() {
+        deleted = true;
+        final File[] files = folder.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                if(!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+        if(!folder.delete()) {
+            folder.deleteOnExit();
+        }
+    }
+
+    /**
+     * Getter for id
+     * @return identifier of the job
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Getter for projectKey
+     * @return key of the reported project
+     */
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    /**
+     * Getter for status
+     * @return current step of the job
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for message
+     * @return error which stopped the job, null otherwise
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Getter for finishedAt
+     * @return date (in milliseconds) of the end of the job, 0 while not finished
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Give the archive containing all files of the report
+     * @return the archive, which exists when the status is DONE
+     */
+    public File getArchive() {
+        return new File(folder, String.format(ReportTask.ARCHIVE_PATTERN, ReportTask.toProjectCode(projectKey)));
+    }
+}
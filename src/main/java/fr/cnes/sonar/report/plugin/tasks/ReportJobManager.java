@@ -0,0 +1,263 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.report.plugin.tasks;
+
+import fr.cnes.sonar.report.ReportCommandLine;
+import fr.cnes.sonar.report.utils.StringManager;
+import org.sonar.api.Startable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queue of report jobs executed by a bounded pool of workers,
+ * so that web requests never wait for a report's generation.
+ * It is started and stopped with the server.
+ * @author lequal
+ */
+@ServerSide
+public class ReportJobManager implements Startable {
+
+    /**
+     * Name of the property giving the number of reports generated at the same time
+     */
+    private static final String JOBS_WORKERS = "plugin.jobs.workers";
+    /**
+     * Name of the property giving the number of jobs waiting for a worker
+     */
+    private static final String JOBS_QUEUE = "plugin.jobs.queue";
+    /**
+     * Name of the property giving the time (in seconds) during which a finished job is kept
+     */
+    private static final String JOBS_RETENTION = "plugin.jobs.retention";
+    /**
+     * Name of the property giving the time (in seconds) between two purges of expired jobs
+     */
+    private static final String JOBS_PURGE = "plugin.jobs.purge";
+    /**
+     * Prefix of workers' names
+     */
+    private static final String WORKER_NAME = "cnesreport-job-";
+    /**
+     * Name of the thread purging expired jobs
+     */
+    private static final String PURGE_NAME = "cnesreport-purge";
+    /**
+     * Time (in seconds) given to running jobs to stop with the server
+     */
+    private static final long STOP_TIMEOUT = 10;
+    /**
+     * Message logged when a file of the workspace cannot be deleted
+     */
+    private static final String DELETE_ERROR = "Cannot delete %s";
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOGGER = Loggers.get(ReportJobManager.class);
+
+    /**
+     * Workers executing jobs
+     */
+    private final ExecutorService executor;
+    /**
+     * Known jobs indexed by identifier
+     */
+    private final Map<String, ReportJob> jobs;
+    /**
+     * Time (in milliseconds) during which a finished job is kept
+     */
+    private final long retention;
+    /**
+     * Time (in seconds) between two purges of expired jobs
+     */
+    private final long purgePeriod;
+    /**
+     * Folder containing one sub folder per job
+     */
+    private final File workspace;
+    /**
+     * Thread purging expired jobs, set while the manager is started
+     */
+    private ScheduledExecutorService purger;
+
+    /**
+     * Constructor reading the configuration in report.properties
+     */
+    public ReportJobManager() {
+        this(Integer.parseInt(StringManager.getProperty(JOBS_WORKERS)),
+                Integer.parseInt(StringManager.getProperty(JOBS_QUEUE)),
+                Long.parseLong(StringManager.getProperty(JOBS_RETENTION)),
+                Long.parseLong(StringManager.getProperty(JOBS_PURGE)),
+                new File(ReportTask.WORKSPACE));
+    }
+
+    /**
+     * Complete constructor
+     * @param workers number of reports generated at the same time
+     * @param queueSize number of jobs waiting for a worker
+     * @param retentionSeconds time (in seconds) during which a finished job is kept
+     * @param purgeSeconds time (in seconds) between two purges of expired jobs
+     * @param pWorkspace folder containing one sub folder per job
+     */
+    public ReportJobManager(final int workers, final int queueSize, final long retentionSeconds,
+                            final long purgeSeconds, final File pWorkspace) {
+        // jobs beyond the queue's capacity are rejected instead of piling up
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), daemonFactory(WORKER_NAME));
+        this.jobs = new ConcurrentHashMap<>();
+        this.retention = retentionSeconds * 1000L;
+        this.purgePeriod = Math.max(1L, purgeSeconds);
+        this.workspace = pWorkspace;
+    }
+
+    /**
+     * Delete the folders left by a previous execution and start purging expired jobs
+     */
+    @Override
+    public synchronized void start() {
+        // jobs are only known in memory: all existing folders belong to a previous execution
+        final File[] folders = workspace.listFiles();
+        if(folders != null) {
+            for(File folder : folders) {
+                deleteRecursively(folder);
+            }
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(daemonFactory(PURGE_NAME));
+        purger.scheduleWithFixedDelay(this::purge, purgePeriod, purgePeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the workers and the purge, then delete the files of all jobs
+     */
+    @Override
+    public synchronized void stop() {
+        if(purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for(ReportJob job : jobs.values()) {
+            job.delete();
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Queue the generation of a report
+     * @param projectKey key of the project to report
+     * @param author author of the report
+     * @return the queued job
+     * @throws IOException when the output folder cannot be created
+     * @throws RejectedExecutionException when too many jobs are waiting
+     */
+    public ReportJob submit(final String projectKey, final String author) throws IOException {
+        final String id = UUID.randomUUID().toString();
+        final File folder = new File(workspace, id);
+        if(!folder.mkdirs()) {
+            throw new IOException(String.format(ReportCommandLine.CNES_MKDIR_ERROR, folder.getPath()));
+        }
+        final ReportJob job = new ReportJob(id, projectKey, author, folder);
+        jobs.put(id, job);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            job.delete();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Find a job, its retention starts again from now
+     * @param id identifier of the job
+     * @return the job or null if it is unknown or expired
+     */
+    public ReportJob get(final String id) {
+        final ReportJob job = jobs.get(id);
+        if(job != null) {
+            job.touch();
+        }
+        return job;
+    }
+
+    /**
+     * Forget jobs not used for longer than the retention and delete their files,
+     * jobs being downloaded are kept
+     */
+    void purge() {
+        final long now = System.currentTimeMillis();
+        final Iterator<ReportJob> iterator = jobs.values().iterator();
+        while(iterator.hasNext()) {
+            if(iterator.next().deleteIfExpired(now, retention)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Create daemon threads so that they never prevent the server from stopping
+     * @param name prefix of the threads' names
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonFactory(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Delete a file or a folder with all its content
+     * @param file file or folder to delete
+     */
+    private static void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if(children != null) {
+            for(File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if(!file.delete()) {
+            LOGGER.warn(String.format(DELETE_ERROR, file.getPath()));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.report.plugin.tasks;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+
+/**
+ * Give the status of a report job
+ * @author lequal
+ */
+public class ReportStatusTask implements RequestHandler {
+
+    /**
+     * Name of the parameter and field containing the job's identifier
+     */
+    static final String ID = "id";
+    /**
+     * Field containing the reported project's key
+     */
+    static final String KEY = "key";
+    /**
+     * Field containing the job's status
+     */
+    static final String STATUS = "status";
+    /**
+     * Field containing the error which stopped the job
+     */
+    static final String MESSAGE = "message";
+    /**
+     * Error message when a job does not exist
+     */
+    static final String UNKNOWN_JOB = "Unknown or expired report job: %s";
+
+    /**
+     * Jobs of the plugin
+     */
+    private final ReportJobManager manager;
+
+    /**
+     * Complete constructor
+     * @param pManager jobs of the plugin
+     */
+    public ReportStatusTask(final ReportJobManager pManager) {
+        this.manager = pManager;
+    }
+
+    /**
+     * Send the status of the requested job
+     * @param request request containing the job's identifier
+     * @param response response containing the job's status
+     */
+    @Override
+    public void handle(final Request request, final Response response) {
+        writeJob(response, findJob(manager, request.mandatoryParam(ID)));
+    }
+
+    /**
+     * Find a job or fail with a bad request
+     * @param manager jobs of the plugin
+     * @param id identifier of the job
+     * @return the job
+     * @throws IllegalArgumentException when the job is unknown
+     */
+    static ReportJob findJob(final ReportJobManager manager, final String id) {
+        final ReportJob job = manager.get(id);
+        if(job == null) {
+            throw new IllegalArgumentException(String.format(UNKNOWN_JOB, id));
+        }
+        return job;
+    }
+
+    /**
+     * Write a job's description in json
+     * @param response response to write in
+     * @param job job to describe
+     */
+    static void writeJob(final Response response, final ReportJob job) {
+        response.newJsonWriter().beginObject()
+                .prop(ID, job.getId())
+                .prop(KEY, job.getProjectKey())
+                .prop(STATUS, job.getStatus().name())
+                .prop(MESSAGE, job.getMessage())
+                .endObject().close();
+    }
+}
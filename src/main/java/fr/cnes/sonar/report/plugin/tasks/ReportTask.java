@@ -20,29 +20,26 @@ package fr.cnes.sonar.report.plugin.tasks;
 import fr.cnes.sonar.report.exceptions.BadExportationDataTypeException;
 import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
 import fr.cnes.sonar.report.exceptions.UnknownQualityGateException;
-import fr.cnes.sonar.report.exporters.JsonExporter;
-import fr.cnes.sonar.report.exporters.XmlExporter;
 import fr.cnes.sonar.report.exporters.docx.DocXExporter;
 import fr.cnes.sonar.report.exporters.xlsx.XlsXExporter;
 import fr.cnes.sonar.report.factory.ReportFactory;
 import fr.cnes.sonar.report.utils.StringManager;
+import fr.cnes.sonar.report.model.QualityProfile;
 import fr.cnes.sonar.report.model.Report;
-import org.apache.commons.io.IOUtils;
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.xmlbeans.XmlException;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.RequestHandler;
 import org.sonar.api.server.ws.Response;
-import org.sonar.api.utils.log.Logger;
-import org.sonar.api.utils.log.Loggers;
 import org.sonarqube.ws.MediaTypes;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Execute element to produce the report
@@ -50,11 +47,6 @@ import java.util.Date;
  */
 public class ReportTask implements RequestHandler {
 
-    /**
-     * Logger for this class.
-     */
-    private static final Logger LOGGER = Loggers.get(ReportTask.class);
-
     /**
      * Replacement character for not supported chars
      */
@@ -63,49 +55,65 @@ public class ReportTask implements RequestHandler {
      * Not supported characters' regex
      */
     private static final String NOT_SUPPORTED_CHARS = ":";
+    /**
+     * Characters not allowed in the name of a file of the archive
+     */
+    private static final String NOT_SUPPORTED_ENTRY_CHARS = "[^A-Za-z0-9._-]";
+    /**
+     * Replacement character for characters not allowed in the name of a file of the archive
+     */
+    private static final String UNDERSCORE = "_";
+    /**
+     * Name of the docx report in the output folder
+     */
+    static final String DOCX_FILENAME = "analysis-report.docx";
+    /**
+     * Name of the xlsx issues' list in the output folder
+     */
+    static final String XLSX_FILENAME = "issues-report.xlsx";
+    /**
+     * Folder where reports are generated
+     */
+    static final String WORKSPACE = "temp/cnesreport";
+    /**
+     * Template of the docx report
+     */
+    static final String REPORT_TEMPLATE = "template/code-analysis-template.docx";
+    /**
+     * Template of the xlsx issues' list
+     */
+    static final String ISSUES_TEMPLATE = "template/issues-template.xlsx";
+    /**
+     * Pattern of the archive's name: project's code
+     */
+    static final String ARCHIVE_PATTERN = "report-%s.zip";
+    /**
+     * Pattern of a quality profile's configuration in the archive: profile's key
+     */
+    private static final String PROFILE_PATTERN = "conf/%s.xml";
+    /**
+     * Pattern of the quality gate's configuration in the archive: gate's name
+     */
+    private static final String GATE_PATTERN = "conf/%s.json";
 
     /**
-     * Product the report
+     * Get all data of a project's report from SonarQube
      * @param projectId Key of the project to report
      * @param reportAuthor Author of the report
-     * @param reportPath Output folder
-     * @param reportTemplate template to use for the processing
-     * @param issuesTemplate template for the xlsx file
-     * @return logs of the task
-     * @throws IOException When a file writing goes wrong.
+     * @return the report
+     * @throws IOException When contacting the server goes wrong.
      * @throws BadSonarQubeRequestException Invoked request is not correct.
      * @throws UnknownQualityGateException Asked quality gate is unknown.
      */
-    public String report(final String projectId, final String reportAuthor, final String reportPath,
-                         final String reportTemplate, final String issuesTemplate)
-            throws IOException, BadSonarQubeRequestException, UnknownQualityGateException, BadExportationDataTypeException, XmlException, OpenXML4JException {
-
+    static Report createReport(final String projectId, final String reportAuthor)
+            throws IOException, BadSonarQubeRequestException, UnknownQualityGateException {
         // formatted date
         final String date = new SimpleDateFormat(StringManager.DATE_PATTERN).format(new Date());
         // url of SQ server
         final String sonarqubeUrl = "http://localhost:9000";
 
         // generate report
-        final Report report = new ReportFactory(sonarqubeUrl, "noauth", projectId, reportAuthor, date).create();
-
-        // instantiate exporters
-        final DocXExporter docXExporter = new DocXExporter();
-        final XmlExporter profileExporter = new XmlExporter();
-        final JsonExporter gateExporter = new JsonExporter();
-        final XlsXExporter issuesExporter = new XlsXExporter();
-
-        // prepare docx report's filename
-        final String docXFilename = "temp/cnesreport/analysis-report.docx";
-        // export the full docx report
-        File docx = docXExporter.export(report, docXFilename, "template/code-analysis-template.docx");
-
-        // construct the xlsx filename by replacing date and name
-        final String xlsXFilename = "temp/cnesreport/issues-report.xlsx";
-        // export the xlsx issues' list
-        File xlsx = issuesExporter.export(report, xlsXFilename, "template/issues-template.xlsx");
-
-        // return the log
-        return "nop";
+        return new ReportFactory(sonarqubeUrl, "noauth", projectId, reportAuthor, date).create();
     }
 
     /**
@@ -121,85 +129,99 @@ public class ReportTask implements RequestHandler {
 
         // Key of the project provided by the user through parameters
         final String projectKey = request.mandatoryParam("key");
-        // Code to be used in the created files. The only character that is not supported
-        // in filesystems but which is in project key is ":", so we replace all occurrences by a "#".
-        final String projectCode = projectKey.replaceAll(NOT_SUPPORTED_CHARS, HASHTAG);
         // Report's author
         final String author = request.mandatoryParam("author");
-        // Date of today
-        final String today = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
-        // Construct the name of the output folder
-        final String workspace = "./";
-
-        // read request parameters and generates response output
-        // generate the reports and save output
-        final String result = report(
-                projectKey,
-                author,
-                workspace,
-                "template/code-analysis-template.docx",
-                "template/issues-template.xlsx"
-        );
-
-        // works
-        // getClass().getResourceAsStream("/template/issues-template.xlsx")
-
-        /**
-         StringBuilder sb = new StringBuilder();
-         sb.append("Test String");
-
-         File f = new File("d:\\test.zip");
-         ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f));
-         ZipEntry e = new ZipEntry("mytext.txt");
-         out.putNextEntry(e);
-
-         byte[] data = sb.toString().getBytes();
-         out.write(data, 0, data.length);
-         out.closeEntry();
-
-         out.close();
-         */
-
-        // create the final zip with all documents to return
-        InputStream reportFile = this.getClass().getResourceAsStream("/template/issues-template.xlsx");
-
-        // finally respond to the request with the file containing all report's files
-        sendFile(response, reportFile, "report-"+projectCode+".zip");
+
+        // get data before answering so that errors are sent as errors
+        final Report report = createReport(projectKey, author);
+
+        // We write directly in the response output stream rather than in the SQ response.
+        final Response.Stream stream = response.stream();
+        final String filename = String.format(ARCHIVE_PATTERN, toProjectCode(projectKey));
+        // zip content type
+        stream.setMediaType(MediaTypes.getByFilename(filename));
+        // data are declared as attachment with a specific name
+        response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+        // files are zipped while they are generated so the download starts at once
+        try (OutputStream output = stream.output()) {
+            writeArchive(report, output, REPORT_TEMPLATE, ISSUES_TEMPLATE);
+        }
     }
 
     /**
-     * Copy a stream into another one.
-     * @param in InputStream to copy (source).
-     * @param out OutputStream (destination).
-     * @throws IOException When an error occurs on copy.
+     * Write all files of a report as a zip archive: docx report, xlsx issues' list,
+     * configuration of quality profiles and quality gate, named after their keys
+     * restricted to safe characters
+     * @param report report to write
+     * @param output stream receiving the archive, it is not closed
+     * @param reportTemplate template of the docx report
+     * @param issuesTemplate template of the xlsx issues' list
+     * @throws IOException When writing goes wrong.
+     * @throws XmlException on xml error
+     * @throws OpenXML4JException on OpenXML error
      */
-    private void writeStream(final InputStream in, final OutputStream out) throws IOException {
-        IOUtils.copy(in, out);
+    public static void writeArchive(final Report report, final OutputStream output,
+                             final String reportTemplate, final String issuesTemplate)
+            throws IOException, XmlException, OpenXML4JException {
+        final ZipOutputStream zip = new ZipOutputStream(output);
+
+        // docx report
+        zip.putNextEntry(new ZipEntry(DOCX_FILENAME));
+        new DocXExporter().export(report, zip, reportTemplate);
+        zip.closeEntry();
+
+        // xlsx issues' list
+        zip.putNextEntry(new ZipEntry(XLSX_FILENAME));
+        new XlsXExporter().export(report, zip, issuesTemplate);
+        zip.closeEntry();
+
+        // configuration of each quality profile
+        for(QualityProfile profile : report.getQualityProfiles()) {
+            writeEntry(zip, String.format(PROFILE_PATTERN, toEntryName(profile.getKey())),
+                    profile.getConf());
+        }
+
+        // configuration of the quality gate
+        writeEntry(zip, String.format(GATE_PATTERN, toEntryName(report.getQualityGate().getName())),
+                report.getQualityGate().getConf());
+
+        // end the archive without closing the output
+        zip.finish();
     }
 
     /**
-     * Send back a file on the response of a web api action.
-     * @param response Response in which join a file.
-     * @param input File to return.
-     * @param filename Name to give to the attachment on client side.
+     * Write a text file in an archive
+     * @param zip archive
+     * @param name name of the file in the archive
+     * @param content content of the file
+     * @throws IOException When writing goes wrong.
      */
-    private void sendFile(final Response response, final InputStream input, final String filename) {
-        // We write directly in the response output stream rather than in the SQ response.
-        Response.Stream stream = response.stream();
-        // try-with-resources to auto-close streams in case of exception
-        try ( OutputStream output = response.stream().output() ) {
-
-            // we select content type with the filename's extension,
-            // if unknown then default type is "application/octet-stream"
-            stream.setMediaType(MediaTypes.getByFilename(filename));
-            // data are declared as attachment with a specific name
-            response.setHeader("Content-Disposition", "attachment; filename=" + filename);
-            // copy utils stream in output one
-            writeStream(input, output);
-
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+    private static void writeEntry(final ZipOutputStream zip, final String name,
+                                   final String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Name of a file of the archive built from a profile's key or a gate's name:
+     * only letters, digits, '.', '_' and '-' are kept so that it can neither
+     * leave the conf folder nor be rejected by a file system
+     * @param name key or name given by SonarQube
+     * @return the name with unsafe characters replaced by '_'
+     */
+    static String toEntryName(final String name) {
+        return name.replaceAll(NOT_SUPPORTED_ENTRY_CHARS, UNDERSCORE);
+    }
+
+    /**
+     * Code to be used in the created files. The only character that is not supported
+     * in filesystems but which is in project key is ":", so we replace all occurrences by a "#".
+     * @param projectKey key of the project
+     * @return the code of the project
+     */
+    static String toProjectCode(final String projectKey) {
+        return projectKey.replaceAll(NOT_SUPPORTED_CHARS, HASHTAG);
     }
 
 }
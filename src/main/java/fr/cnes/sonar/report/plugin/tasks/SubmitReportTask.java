@@ -0,0 +1,74 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.sonar.report.plugin.tasks;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Queue the generation of a report and answer immediately with the job's status
+ * @author lequal
+ */
+public class SubmitReportTask implements RequestHandler {
+
+    /**
+     * Message sent when too many reports are waiting
+     */
+    private static final String REJECTED_MESSAGE = "Too many reports are being generated, retry later.";
+
+    /**
+     * Jobs of the plugin
+     */
+    private final ReportJobManager manager;
+
+    /**
+     * Complete constructor
+     * @param pManager jobs of the plugin
+     */
+    public SubmitReportTask(final ReportJobManager pManager) {
+        this.manager = pManager;
+    }
+
+    /**
+     * Use the user's request to queue the report generation
+     * @param request request coming from the user
+     * @param response response containing the job's identifier and status
+     * @throws IOException when the job's folder cannot be created
+     */
+    @Override
+    public void handle(final Request request, final Response response) throws IOException {
+        // Key of the project provided by the user through parameters
+        final String projectKey = request.mandatoryParam("key");
+        // Report's author
+        final String author = request.mandatoryParam("author");
+
+        try {
+            ReportStatusTask.writeJob(response, manager.submit(projectKey, author));
+        } catch (RejectedExecutionException e) {
+            // the queue is full: the user has to come back later
+            response.stream().setStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+            response.newJsonWriter().beginObject()
+                    .prop(ReportStatusTask.MESSAGE, REJECTED_MESSAGE)
+                    .endObject().close();
+        }
+    }
+}
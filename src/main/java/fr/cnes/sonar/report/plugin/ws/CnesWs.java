@@ -16,7 +16,11 @@
  */
 package fr.cnes.sonar.report.plugin.ws;
 
+import fr.cnes.sonar.report.plugin.tasks.DownloadReportTask;
+import fr.cnes.sonar.report.plugin.tasks.ReportJobManager;
+import fr.cnes.sonar.report.plugin.tasks.ReportStatusTask;
 import fr.cnes.sonar.report.plugin.tasks.ReportTask;
+import fr.cnes.sonar.report.plugin.tasks.SubmitReportTask;
 import org.sonar.api.server.ws.WebService;
 
 /**
@@ -25,6 +29,19 @@ import org.sonar.api.server.ws.WebService;
  */
 public class CnesWs implements WebService {
 
+    /**
+     * Reports generated in background, shared by the actions of this web service
+     */
+    private final ReportJobManager jobManager;
+
+    /**
+     * Constructor injecting the jobs of the plugin
+     * @param pJobManager reports generated in background
+     */
+    public CnesWs(final ReportJobManager pJobManager) {
+        this.jobManager = pJobManager;
+    }
+
     /**
      * Define the new web service
      * Define each controller and action
@@ -41,6 +58,10 @@ public class CnesWs implements WebService {
 
         // create the action for URL /api/cnes/report
         reportAction(controller);
+        // create the actions for asynchronous generation
+        submitAction(controller);
+        statusAction(controller);
+        downloadAction(controller);
 
         // important to apply changes
         controller.done();
@@ -63,6 +84,49 @@ public class CnesWs implements WebService {
         createParam(report, "author", "The name of this report's author.", true);
     }
 
+    /**
+     * Add the action queuing a report generation
+     * @param controller controller to which add the action
+     */
+    private void submitAction(final NewController controller) {
+        final NewAction submit = controller.createAction("submit");
+        submit.setDescription("Queue the generation of the report of an analysis " +
+                "and return the identifier of the job.");
+        submit.setSince("6.3.1");
+        submit.setPost(true);
+        submit.setHandler(new SubmitReportTask(jobManager));
+        // key parameter
+        createParam(submit, "key", "The key of the project to report.", true);
+        // author's name parameter
+        createParam(submit, "author", "The name of this report's author.", true);
+    }
+
+    /**
+     * Add the action giving the status of a report generation
+     * @param controller controller to which add the action
+     */
+    private void statusAction(final NewController controller) {
+        final NewAction status = controller.createAction("status");
+        status.setDescription("Give the status of a report job: PENDING, RUNNING, DONE or FAILED.");
+        status.setSince("6.3.1");
+        status.setHandler(new ReportStatusTask(jobManager));
+        // job's identifier parameter
+        createParam(status, "id", "The identifier of the report job.", true);
+    }
+
+    /**
+     * Add the action sending the files of a generated report
+     * @param controller controller to which add the action
+     */
+    private void downloadAction(final NewController controller) {
+        final NewAction download = controller.createAction("download");
+        download.setDescription("Download the archive of a report job whose status is DONE.");
+        download.setSince("6.3.1");
+        download.setHandler(new DownloadReportTask(jobManager));
+        // job's identifier parameter
+        createParam(download, "id", "The identifier of the report job.", true);
+    }
+
     /**
      * Create a new parameter on a given action.
      * @param action Action to enhance.
@@ -20,12 +20,19 @@ package fr.cnes.sonar.report.providers;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
 import fr.cnes.sonar.report.utils.StringManager;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +75,18 @@ public abstract class AbstractDataProvider {
      *  Name of the request for getting issues
      */
     protected static final String GET_ISSUES_REQUEST = "GET_ISSUES_REQUEST";
+    /**
+     *  Name of the request for getting the values of a facet for some issues
+     */
+    protected static final String GET_ISSUES_FACET_REQUEST = "GET_ISSUES_FACET_REQUEST";
+    /**
+     *  Name of the request for getting issues sorted by creation date
+     */
+    protected static final String GET_ISSUES_BY_DATE_REQUEST = "GET_ISSUES_BY_DATE_REQUEST";
+    /**
+     *  Name of the request for getting issues sorted by last update, the most recent first
+     */
+    protected static final String GET_UPDATED_ISSUES_REQUEST = "GET_UPDATED_ISSUES_REQUEST";
     /**
      *  Name of the request for getting facets
      */
@@ -88,6 +107,10 @@ public abstract class AbstractDataProvider {
      *  Name of the request for getting a specific project
      */
     protected static final String GET_PROJECT_REQUEST = "GET_PROJECT_REQUEST";
+    /**
+     *  Name of the request for getting the list of projects
+     */
+    protected static final String GET_PROJECTS_REQUEST = "GET_PROJECTS_REQUEST";
     /**
      *  Name of the request for getting quality profiles
      */
@@ -97,6 +120,19 @@ public abstract class AbstractDataProvider {
      */
     protected static final String GET_QUALITY_PROFILES_CONF_REQUEST =
             "GET_QUALITY_PROFILES_CONFIGURATION_REQUEST";
+    /**
+     *  Name of the property for the maximum number of pages requested simultaneously
+     */
+    protected static final String PAGES_PARALLELISM = "PAGES_PARALLELISM";
+    /**
+     *  Name of the property for the maximum number of requests about quality profiles
+     *  sent simultaneously
+     */
+    protected static final String PROFILES_PARALLELISM = "PROFILES_PARALLELISM";
+    /**
+     * Field to search in json to get errors sent by the server
+     */
+    protected static final String ERRORS = "errors";
     /**
      * Field to search in json to get results' values
      */
@@ -121,6 +157,14 @@ public abstract class AbstractDataProvider {
      * Field to search in json to get the component
      */
     protected static final String COMPONENT = "component";
+    /**
+     * Field to search in json to get the list of components
+     */
+    protected static final String COMPONENTS = "components";
+    /**
+     * Field to search in json to get paging information
+     */
+    protected static final String PAGING = "paging";
     /**
      * Field to search in json to get measures
      */
@@ -206,6 +250,38 @@ public abstract class AbstractDataProvider {
         }
     }
 
+    /**
+     * Request of a single page of results
+     * @param <T> type of the page's content
+     */
+    @FunctionalInterface
+    protected interface PageRequest<T> {
+        /**
+         * Request and convert a page
+         * @param page index of the page, starting from 1
+         * @return the content of the page
+         * @throws IOException if there were an error contacting the server
+         * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+         */
+        T request(int page) throws IOException, BadSonarQubeRequestException;
+    }
+
+    /**
+     * Reader of a json response
+     * @param <T> type of the read result
+     */
+    @FunctionalInterface
+    protected interface JsonResponseReader<T> {
+        /**
+         * Read a json response
+         * @param reader json stream of the response
+         * @return the read result
+         * @throws IOException when reading the stream
+         * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+         */
+        T read(JsonReader reader) throws IOException, BadSonarQubeRequestException;
+    }
+
     /**
      * Singleton which execute concrete http requests
      */
@@ -248,7 +324,15 @@ public abstract class AbstractDataProvider {
      */
     private void isErrorFree(final JsonObject jsonObject) throws BadSonarQubeRequestException {
         // we retrieve the exception
-        final JsonElement error = jsonObject.get("errors");
+        checkErrors(jsonObject.get(ERRORS));
+    }
+
+    /**
+     * Check if the server has sent an error
+     * @param error The errors field of the server's response, can be null
+     * @throws BadSonarQubeRequestException thrown if the server do not understand our request
+     */
+    protected void checkErrors(final JsonElement error) throws BadSonarQubeRequestException {
         // if there is an error we search the message and throw an exception
         if (error != null) {
             // Json object of the error
@@ -271,8 +355,29 @@ public abstract class AbstractDataProvider {
     public JsonObject request(final String request)
             throws IOException, BadSonarQubeRequestException {
         // do the request to the server and return a string answer
-        final String raw = stringRequest(request);
+        return toJsonObject(stringRequest(request));
+    }
+
+    /**
+     * Execute a given request whose response rarely changes, the response
+     * can come from the persistent cache
+     * @param request Url for the request, for example http://sonarqube:1234/api/toto/list
+     * @return Server's response as a JsonObject
+     * @throws IOException if there were an error contacting the server
+     * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+     */
+    protected JsonObject cachedRequest(final String request)
+            throws IOException, BadSonarQubeRequestException {
+        return toJsonObject(cachedStringRequest(request));
+    }
 
+    /**
+     * Parse a server's response
+     * @param raw Server's response as a string
+     * @return Server's response as a JsonObject
+     * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+     */
+    private JsonObject toJsonObject(final String raw) throws BadSonarQubeRequestException {
         // prepare json
         final JsonElement json;
 
@@ -299,16 +404,151 @@ public abstract class AbstractDataProvider {
      * Get the raw string response
      * @param request the raw url of the request
      * @return the server's response as a string
+     * @throws IOException if there were an error contacting the server
+     */
+    protected String stringRequest(final String request) throws IOException {
+        // launch the request on SonarQube server and retrieve resources into a string
+        return RequestManager.getInstance().get(prepareRequest(request), this.token);
+    }
+
+    /**
+     * Get the raw string response of a request whose response rarely changes,
+     * the response can come from the persistent cache
+     * @param request the raw url of the request
+     * @return the server's response as a string
+     * @throws IOException if there were an error contacting the server
+     */
+    protected String cachedStringRequest(final String request) throws IOException {
+        return RequestManager.getInstance().getCached(prepareRequest(request), this.token);
+    }
+
+    /**
+     * Execute a given request and read the response as a json stream,
+     * without loading the whole response in memory
+     * @param request the raw url of the request
+     * @param responseReader reader converting the json stream
+     * @param <T> type of the read result
+     * @return result of responseReader
+     * @throws IOException if there were an error contacting the server
+     * @throws BadSonarQubeRequestException if SonarQube Server sent an error
      */
-    protected String stringRequest(final String request) {
-        // prepare the request by replacing some relevant special characters
+    protected <T> T streamRequest(final String request, final JsonResponseReader<T> responseReader)
+            throws IOException, BadSonarQubeRequestException {
+        return RequestManager.getInstance().get(prepareRequest(request), this.token,
+            reader -> {
+                try (JsonReader jsonReader = new JsonReader(reader)) {
+                    return responseReader.read(jsonReader);
+                } catch (IllegalStateException | MalformedJsonException e) {
+                    // log exception's message
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    throw new BadSonarQubeRequestException(e.getMessage());
+                }
+            });
+    }
+
+    /**
+     * Prepare the request by replacing some relevant special characters
+     * @param request the raw url of the request
+     * @return the url to request
+     */
+    private static String prepareRequest(final String request) {
         // replace spaces
-        String preparedRequest = request.replaceAll(" ", "%20");
+        final String preparedRequest = request.replaceAll(" ", "%20");
         // replace + characters
-        preparedRequest = preparedRequest.replaceAll("\\+", "%2B");
+        return preparedRequest.replaceAll("\\+", "%2B");
+    }
 
-        // launch the request on SonarQube server and retrieve resources into a string
-        return RequestManager.getInstance().get(preparedRequest, this.token);
+    /**
+     * Request a range of pages, several at the same time if PAGES_PARALLELISM allows it
+     * @param firstPage index of the first page to request
+     * @param lastPage index of the last page to request (included)
+     * @param pageRequest request to execute for each page
+     * @param <T> type of the page's content
+     * @return the content of each page, in page order
+     * @throws IOException if there were an error contacting the server
+     * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+     */
+    protected <T> List<T> requestPages(final int firstPage, final int lastPage,
+                                       final PageRequest<T> pageRequest)
+            throws IOException, BadSonarQubeRequestException {
+        // results in page order
+        final List<T> results = new ArrayList<>();
+        // number of pages to request
+        final int count = lastPage - firstPage + 1;
+        // maximum number of pages requested at the same time
+        final int parallelism = Math.min(count,
+                Integer.parseInt(getRequest(PAGES_PARALLELISM)));
+
+        if(parallelism <= 1) {
+            // request pages one by one
+            for(int page = firstPage; page <= lastPage; page++) {
+                results.add(pageRequest.request(page));
+            }
+        } else {
+            // pages are executed by the shared pool, at most parallelism of them
+            // at the same time: a page is submitted each time one is received
+            final List<Future<T>> futures = new ArrayList<>();
+            int next = firstPage;
+            try {
+                for(; next < firstPage + parallelism; next++) {
+                    futures.add(submit(pageRequest, next));
+                }
+                // reassemble results in page order
+                for(int index = 0; index < count; index++) {
+                    results.add(waitFor(futures.get(index)));
+                    if(next <= lastPage) {
+                        futures.add(submit(pageRequest, next));
+                        next++;
+                    }
+                }
+            } finally {
+                // pages still pending after a failure are useless
+                for(Future<T> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Request a page on the pool shared by all reports
+     * @param pageRequest request to execute for the page
+     * @param page index of the page
+     * @param <T> type of the page's content
+     * @return the pending content of the page
+     */
+    private static <T> Future<T> submit(final PageRequest<T> pageRequest, final int page) {
+        return RequestManager.getInstance().submit(() -> pageRequest.request(page));
+    }
+
+    /**
+     * Wait for the result of a concurrent request and rethrow its exceptions
+     * @param future result of the request
+     * @param <T> type of the result
+     * @return the result
+     * @throws IOException if there were an error contacting the server
+     * @throws BadSonarQubeRequestException if SonarQube Server sent an error
+     */
+    protected static <T> T waitFor(final Future<T> future)
+            throws IOException, BadSonarQubeRequestException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof BadSonarQubeRequestException) {
+                throw (BadSonarQubeRequestException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
     }
 
     /**
@@ -0,0 +1,140 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.providers;
+
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Snapshot of the http connection pool's state
+ * @author lequal
+ */
+public class ConnectionPoolStatistics {
+
+    /**
+     * Pattern used to display statistics
+     */
+    private static final String TO_STRING_PATTERN =
+            "requests=%d, opened connections=%d, reuse rate=%.2f, leased=%d, available=%d, pending=%d, max=%d";
+
+    /**
+     * Number of executed requests
+     */
+    private final long requests;
+    /**
+     * Number of physical connections opened
+     */
+    private final long openedConnections;
+    /**
+     * Number of connections currently used
+     */
+    private final int leased;
+    /**
+     * Number of idle connections kept alive
+     */
+    private final int available;
+    /**
+     * Number of requests waiting for a connection
+     */
+    private final int pending;
+    /**
+     * Maximum number of connections
+     */
+    private final int max;
+
+    /**
+     * Complete constructor
+     * @param pRequests number of executed requests
+     * @param pOpenedConnections number of physical connections opened
+     * @param pPoolStats state of the pool
+     */
+    public ConnectionPoolStatistics(final long pRequests, final long pOpenedConnections,
+                                    final PoolStats pPoolStats) {
+        this.requests = pRequests;
+        this.openedConnections = pOpenedConnections;
+        this.leased = pPoolStats.getLeased();
+        this.available = pPoolStats.getAvailable();
+        this.pending = pPoolStats.getPending();
+        this.max = pPoolStats.getMax();
+    }
+
+    /**
+     * Give the part of requests which did not need a new connection
+     * @return a rate between 0 and 1
+     */
+    public double getReuseRate() {
+        double rate = 0;
+        if(requests > 0) {
+            rate = Math.max(0, (double) (requests - openedConnections) / requests);
+        }
+        return rate;
+    }
+
+    /**
+     * Getter for requests
+     * @return requests
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Getter for openedConnections
+     * @return openedConnections
+     */
+    public long getOpenedConnections() {
+        return openedConnections;
+    }
+
+    /**
+     * Getter for leased
+     * @return leased
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Getter for available
+     * @return available
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Getter for pending
+     * @return pending
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Getter for max
+     * @return max
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(TO_STRING_PATTERN, requests, openedConnections, getReuseRate(),
+                leased, available, pending, max);
+    }
+}
@@ -17,18 +17,30 @@
 
 package fr.cnes.sonar.report.providers;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
 import fr.cnes.sonar.report.utils.StringManager;
 import fr.cnes.sonar.report.model.Facet;
 import fr.cnes.sonar.report.model.Issue;
 import fr.cnes.sonar.report.model.Rule;
+import fr.cnes.sonar.report.model.Value;
 
 import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides issue items
@@ -50,6 +62,102 @@ public class IssuesProvider extends AbstractDataProvider {
      */
     private static final String UNCONFIRMED = "true";
 
+    /**
+     * Name of the facet giving the number of issues by severity
+     */
+    private static final String SEVERITIES_FACET = "severities";
+    /**
+     * Name of the facet giving the number of issues by type
+     */
+    private static final String TYPES_FACET = "types";
+    /**
+     * Query parameter filtering issues by severity
+     */
+    private static final String SEVERITIES_FILTER = "&severities=";
+    /**
+     * Query parameter filtering issues by type
+     */
+    private static final String TYPES_FILTER = "&types=";
+    /**
+     * Query parameter filtering issues created after a date (included)
+     */
+    private static final String CREATED_AFTER_FILTER = "&createdAfter=";
+    /**
+     * Query parameter filtering issues created before a date (excluded)
+     */
+    private static final String CREATED_BEFORE_FILTER = "&createdBefore=";
+    /**
+     * Field to search in json to get the creation date of an issue
+     */
+    private static final String CREATION_DATE = "creationDate";
+    /**
+     * Pattern of dates used by SonarQube
+     */
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ssZ";
+    /**
+     * Time zone used to write dates
+     */
+    private static final String UTC = "UTC";
+    /**
+     * Smallest dates' range SonarQube can filter, in milliseconds
+     */
+    private static final long ONE_SECOND = 1000L;
+    /**
+     * Message logged when a query is split
+     */
+    private static final String PARTITION_MESSAGE =
+            "%d issues to export, the query is split in %d slices.";
+    /**
+     * Field of a raw issue containing its key
+     */
+    private static final String KEY = "key";
+    /**
+     * Message logged when issues are updated from a previous report
+     */
+    private static final String UPDATED_ISSUES_MESSAGE =
+            "%d issues updated since %s, merged with the previous report.";
+    /**
+     * Message logged when issues cannot be updated from a previous report
+     */
+    private static final String FULL_DOWNLOAD_MESSAGE =
+            "Issues of the previous report cannot be updated, all issues are downloaded.";
+    /**
+     * Parser used to load a single element of a json stream
+     */
+    private static final JsonParser JSON_PARSER = new JsonParser();
+
+    /**
+     * Display name of rules' programming language, indexed by rule's key,
+     * shared by all pages requested by this provider
+     */
+    private final Map<String, String> rulesLanguages;
+
+    /**
+     * Confirmed issues, downloaded once
+     */
+    private List<Issue> confirmedIssues;
+    /**
+     * Confirmed issues as raw maps, downloaded with confirmedIssues
+     */
+    private List<Map> rawIssues;
+    /**
+     * Unconfirmed issues, only kept when updated from a previous report
+     */
+    private List<Issue> unconfirmedIssues;
+
+    /**
+     * Confirmed issues of a previous report, null to download all issues
+     */
+    private List<Issue> previousIssues;
+    /**
+     * Unconfirmed issues of a previous report
+     */
+    private List<Issue> previousUnconfirmed;
+    /**
+     * Raw issues of a previous report
+     */
+    private List<Map> previousRawIssues;
+
     /**
      * Complete constructor
      * @param url String representing the server address.
@@ -58,6 +166,7 @@ public class IssuesProvider extends AbstractDataProvider {
      */
     public IssuesProvider(final String url, final String token, final String project) {
         super(url, token, project);
+        rulesLanguages = new ConcurrentHashMap<>();
     }
 
     /**
@@ -68,7 +177,8 @@ public class IssuesProvider extends AbstractDataProvider {
      */
     public List<Issue> getIssues()
             throws IOException, BadSonarQubeRequestException {
-        return getIssuesByStatus(CONFIRMED);
+        loadConfirmedIssues();
+        return Collections.unmodifiableList(confirmedIssues);
     }
 
     /**
@@ -79,63 +189,234 @@ public class IssuesProvider extends AbstractDataProvider {
      */
     public List<Issue> getUnconfirmedIssues()
             throws IOException, BadSonarQubeRequestException {
-        return getIssuesByStatus(UNCONFIRMED);
+        final List<Issue> result;
+        if(previousIssues != null) {
+            // unconfirmed issues are updated with confirmed ones, if possible
+            loadConfirmedIssues();
+        }
+        if(unconfirmedIssues != null) {
+            result = Collections.unmodifiableList(unconfirmedIssues);
+        } else {
+            result = getIssuesByStatus(UNCONFIRMED, false).issues;
+        }
+        return result;
+    }
+
+    /**
+     * Set issues of a previous report: instead of downloading all issues,
+     * only issues updated since the last known update are requested
+     * and merged with these ones
+     * @param pIssues confirmed issues of the previous report
+     * @param pUnconfirmed unconfirmed issues of the previous report
+     * @param pRawIssues raw issues of the previous report
+     */
+    public void setPreviousIssues(final List<Issue> pIssues, final List<Issue> pUnconfirmed,
+                                  final List<Map> pRawIssues) {
+        this.previousIssues = new ArrayList<>(pIssues);
+        this.previousUnconfirmed = new ArrayList<>(pUnconfirmed);
+        this.previousRawIssues = new ArrayList<>(pRawIssues);
+    }
+
+    /**
+     * Download confirmed issues once, as Issue objects and as raw maps,
+     * both are kept for the lifetime of this provider
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private synchronized void loadConfirmedIssues()
+            throws IOException, BadSonarQubeRequestException {
+        if(confirmedIssues == null && !(previousIssues != null && loadUpdatedIssues())) {
+            final IssuesPage all = getIssuesByStatus(CONFIRMED, true);
+            confirmedIssues = all.issues;
+            rawIssues = all.rawIssues;
+        }
+    }
+
+    /**
+     * Update issues of the previous report with issues updated since the last known update
+     * @return false if the previous report cannot be updated (no date or too many updates)
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private boolean loadUpdatedIssues() throws IOException, BadSonarQubeRequestException {
+        // most recent update known by the previous report
+        final String since = findLastUpdate();
+        final IssuesPage updated = since.isEmpty() ? null : requestUpdatedIssues(parseDate(since));
+
+        if(updated != null) {
+            // issues are indexed by key to replace previous versions
+            final Map<String, Issue> confirmed = new LinkedHashMap<>();
+            final Map<String, Map> raw = new LinkedHashMap<>();
+            final Map<String, Issue> unconfirmed = new LinkedHashMap<>();
+            for(Issue issue : previousIssues) {
+                confirmed.put(issue.getKey(), issue);
+            }
+            for(Map map : previousRawIssues) {
+                raw.put(String.valueOf(map.get(KEY)), map);
+            }
+            for(Issue issue : previousUnconfirmed) {
+                unconfirmed.put(issue.getKey(), issue);
+            }
+
+            // an issue is confirmed as long as it has no resolution
+            for(int i = 0; i < updated.issues.size(); i++) {
+                final Issue issue = updated.issues.get(i);
+                confirmed.remove(issue.getKey());
+                raw.remove(issue.getKey());
+                unconfirmed.remove(issue.getKey());
+                if(issue.getResolution() == null || issue.getResolution().isEmpty()) {
+                    confirmed.put(issue.getKey(), issue);
+                    raw.put(issue.getKey(), updated.rawIssues.get(i));
+                } else {
+                    unconfirmed.put(issue.getKey(), issue);
+                }
+            }
+
+            confirmedIssues = new ArrayList<>(confirmed.values());
+            rawIssues = new ArrayList<>(raw.values());
+            unconfirmedIssues = new ArrayList<>(unconfirmed.values());
+            LOGGER.info(String.format(UPDATED_ISSUES_MESSAGE, updated.issues.size(), since));
+        } else {
+            LOGGER.info(FULL_DOWNLOAD_MESSAGE);
+        }
+
+        return updated != null;
+    }
+
+    /**
+     * Find the date of the most recent update in issues of the previous report
+     * @return a date as written by SonarQube or an empty string if unknown
+     * @throws BadSonarQubeRequestException if a date cannot be read
+     */
+    private String findLastUpdate() throws BadSonarQubeRequestException {
+        final List<Issue> previous = new ArrayList<>(previousIssues);
+        previous.addAll(previousUnconfirmed);
+
+        String last = StringManager.EMPTY;
+        long lastTime = Long.MIN_VALUE;
+        boolean known = true;
+        final Iterator<Issue> iterator = previous.iterator();
+        while(known && iterator.hasNext()) {
+            final String date = iterator.next().getUpdateDate();
+            // without date, changes cannot be known
+            known = date != null && !date.isEmpty();
+            if(known && parseDate(date) > lastTime) {
+                lastTime = parseDate(date);
+                last = date;
+            }
+        }
+
+        return known ? last : StringManager.EMPTY;
+    }
+
+    /**
+     * Request all issues updated since a date, whatever their status
+     * @param since date in milliseconds, issues updated at this date are included
+     * @return updated issues with their raw maps, null if there are too many of them
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private IssuesPage requestUpdatedIssues(final long since)
+            throws IOException, BadSonarQubeRequestException {
+        final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
+        final int lastPage = MAXIMUM_ISSUES_LIMIT / maxPerPage;
+        IssuesPage result = new IssuesPage(true);
+
+        // issues come from the most to the least recently updated
+        int page = 1;
+        boolean again = true;
+        while(again) {
+            final String request = String.format(getRequest(GET_UPDATED_ISSUES_REQUEST),
+                    getUrl(), getProjectKey(), maxPerPage, page);
+            final IssuesPage current = streamRequest(request, reader -> readIssuesPage(reader, true));
+
+            // keep issues until the first one older than since
+            int count = 0;
+            while(count < current.issues.size()
+                    && parseDate(current.issues.get(count).getUpdateDate()) >= since) {
+                count++;
+            }
+            result.issues.addAll(current.issues.subList(0, count));
+            result.rawIssues.addAll(current.rawIssues.subList(0, count));
+
+            again = count == current.issues.size() && page * maxPerPage < current.total;
+            if(again && page >= lastPage) {
+                // SonarQube cannot give the next pages
+                result = null;
+                again = false;
+            }
+            page++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Read a date written by SonarQube
+     * @param date date to parse
+     * @return the date in milliseconds
+     * @throws BadSonarQubeRequestException if the date is malformed
+     */
+    private static long parseDate(final String date) throws BadSonarQubeRequestException {
+        try {
+            return new SimpleDateFormat(DATE_TIME_PATTERN).parse(date).getTime();
+        } catch (ParseException e) {
+            throw new BadSonarQubeRequestException(e.getMessage());
+        }
     }
 
     /**
      * Get issues depending on their resolved status
+     * If there are more issues than SonarQube can provide for a single query,
+     * the query is split in slices which are small enough
      * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
-     * @return List containing all the issues
+     * @param withRaw true to also get issues as raw maps
+     * @return all the issues
      * @throws IOException when connecting the server
      * @throws BadSonarQubeRequestException A request is not recognized by the server
      */
-    private List<Issue> getIssuesByStatus(String confirmed)
+    private IssuesPage getIssuesByStatus(final String confirmed, final boolean withRaw)
             throws IOException, BadSonarQubeRequestException {
         // results variable
-        final List<Issue> res = new ArrayList<>();
+        final IssuesPage res = new IssuesPage(withRaw);
 
-        // stop condition
-        boolean goOn = true;
-        // flag when there are too many violation (> MAXIMUM_ISSUES_LIMIT)
-        boolean overflow = false;
-        // current page
-        int page = 1;
+        // get maximum number of results per page
+        final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
+
+        // request the first page to know the total number of issues
+        final IssuesPage first = requestIssuesPage(maxPerPage, 1, confirmed, StringManager.EMPTY, withRaw);
 
-        // temporary declared variable to contain data from ws
-        Issue [] issuesTemp;
-        Rule[] rulesTemp;
-
-        // search all issues of the project
-        while(goOn) {
-            // get maximum number of results per page
-            final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
-            // prepare the url to get all the issues
-            final String request = String.format(getRequest(GET_ISSUES_REQUEST),
-                    getUrl(), getProjectKey(), maxPerPage, page, confirmed);
-            // perform the request to the server
-            final JsonObject jo = request(request);
-            // transform json to Issue and Rule objects
-            issuesTemp = (getGson().fromJson(jo.get(ISSUES), Issue[].class));
-            rulesTemp = (getGson().fromJson(jo.get(RULES), Rule[].class));
-            // association of issues and languages
-            setIssuesLanguage(issuesTemp, rulesTemp);
-            // add them to the final result
-            res.addAll(Arrays.asList(issuesTemp));
-            // check next results' pages
-            int number = (jo.get(TOTAL).getAsInt());
-
-            // check overflow
-            if(number > MAXIMUM_ISSUES_LIMIT) {
-                number = MAXIMUM_ISSUES_LIMIT;
-                overflow = true;
+        // list of slices to request and index of their first page to request
+        final List<Slice> slices;
+        final int firstPage;
+        if(first.total <= MAXIMUM_ISSUES_LIMIT) {
+            // a single slice, whose first page is already known
+            res.add(first);
+            slices = Collections.singletonList(new Slice(StringManager.EMPTY, first.total));
+            firstPage = 2;
+        } else {
+            slices = partition(confirmed, StringManager.EMPTY, first.total);
+            firstPage = 1;
+            LOGGER.info(String.format(PARTITION_MESSAGE, first.total, slices.size()));
+        }
+
+        // list all pages of all slices
+        final List<Slice> pagesSlices = new ArrayList<>();
+        final List<Integer> pagesIndexes = new ArrayList<>();
+        for(Slice slice : slices) {
+            final int lastPage = (Math.min(slice.total, MAXIMUM_ISSUES_LIMIT) + maxPerPage - 1) / maxPerPage;
+            for(int page = firstPage; page <= lastPage; page++) {
+                pagesSlices.add(slice);
+                pagesIndexes.add(page);
             }
-            goOn = page* maxPerPage < number;
-            page++;
         }
 
-        // in case of overflow we log the problem
-        if(overflow) {
-            LOGGER.warning(StringManager.string(StringManager.ISSUES_OVERFLOW_MSG));
+        // request all these pages
+        final List<IssuesPage> pages = requestPages(0, pagesSlices.size() - 1,
+            index -> requestIssuesPage(maxPerPage, pagesIndexes.get(index), confirmed,
+                    pagesSlices.get(index).filter, withRaw));
+        for(IssuesPage page : pages) {
+            res.add(page);
         }
 
         // return the issues
@@ -143,103 +424,261 @@ public class IssuesProvider extends AbstractDataProvider {
     }
 
     /**
-     * Find the display name of the programming language corresponding
-     * to a rule with its key
-     * @param ruleKey key of the rule to find
-     * @param rules array of the rules to browse
-     * @return a String containing the display name of the programming language
+     * Split a query in slices containing each less issues than SonarQube can provide
+     * Issues are split by severity, then by type, then by creation date
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query to split
+     * @param total number of issues matching the query
+     * @return disjoint slices covering all the issues of the query
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
      */
-    private String findLanguageOf(String ruleKey, Rule[] rules) {
-        // stop condition for the main loop
-        boolean again = true;
-        // increment for browsing the array
-        int inc = 0;
-
-        // result to return
-        String language = "";
+    private List<Slice> partition(final String confirmed, final String filter, final int total)
+            throws IOException, BadSonarQubeRequestException {
+        final List<Slice> slices = new ArrayList<>();
 
-        // we iterate on the array until we find the good key
-        while(again && inc < rules.length) {
-            if(ruleKey.equals(rules[inc].getKey())) {
-                again = false;
-                language = rules[inc].getLangName();
+        if(total <= MAXIMUM_ISSUES_LIMIT) {
+            slices.add(new Slice(filter, total));
+        } else if(!filter.contains(SEVERITIES_FILTER)) {
+            // split by severity thanks to facet's counts
+            for(Value value : requestFacet(confirmed, filter, SEVERITIES_FACET)) {
+                slices.addAll(partition(confirmed,
+                        filter + SEVERITIES_FILTER + value.getVal(), value.getCount()));
+            }
+        } else if(!filter.contains(TYPES_FILTER)) {
+            // split by type thanks to facet's counts
+            for(Value value : requestFacet(confirmed, filter, TYPES_FACET)) {
+                slices.addAll(partition(confirmed,
+                        filter + TYPES_FILTER + value.getVal(), value.getCount()));
             }
-            inc++;
+        } else {
+            // split by creation date: [oldest, newest + 1 second[
+            final long oldest = requestCreationDate(confirmed, filter, true);
+            final long newest = requestCreationDate(confirmed, filter, false) + ONE_SECOND;
+            slices.addAll(partitionByDate(confirmed, filter, oldest, newest, total));
         }
 
-        return language;
+        return slices;
     }
 
     /**
-     * Set the language of each issues
-     * @param issues an array of issues to set
-     * @param rules an array of rules containing language information
+     * Split a query in slices by creation date by halving the dates range
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query to split
+     * @param from beginning of the range (included) in milliseconds
+     * @param to end of the range (excluded) in milliseconds
+     * @param total number of issues matching the query in this range
+     * @return disjoint slices covering all the issues of the range
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
      */
-    private void setIssuesLanguage(Issue[] issues, Rule[] rules) {
-        // rule's key of an issue
-        String rulesKey;
-        // language of the previous rule's key
-        String rulesLanguage;
+    private List<Slice> partitionByDate(final String confirmed, final String filter,
+                                        final long from, final long to, final int total)
+            throws IOException, BadSonarQubeRequestException {
+        final List<Slice> slices = new ArrayList<>();
+        final String rangeFilter = dateFilter(filter, from, to);
 
-        // for each issue we associate the corresponding programming language
-        // by browsing the rules array
-        for(int i = 0 ; i < issues.length ; i++) {
-            rulesKey = issues[i].getRule();
-            rulesLanguage = findLanguageOf(rulesKey, rules);
-            issues[i].setLanguage(rulesLanguage);
+        if(total <= MAXIMUM_ISSUES_LIMIT) {
+            slices.add(new Slice(rangeFilter, total));
+        } else if(to - from <= ONE_SECOND) {
+            // SonarQube dates can not be split anymore, in this case we log the problem
+            LOGGER.warning(StringManager.string(StringManager.ISSUES_OVERFLOW_MSG));
+            slices.add(new Slice(rangeFilter, total));
+        } else {
+            final long middle = from + (to - from) / 2;
+            final int before = requestCount(confirmed, dateFilter(filter, from, middle));
+            slices.addAll(partitionByDate(confirmed, filter, from, middle, before));
+            slices.addAll(partitionByDate(confirmed, filter, middle, to, total - before));
         }
+
+        return slices;
     }
 
     /**
-     * Get all the issues of a project in a raw format (map)
-     * @return Array containing all the issues as maps
+     * Add a creation date range to a filter
+     * @param filter additional parameters of the query
+     * @param from beginning of the range (included) in milliseconds
+     * @param to end of the range (excluded) in milliseconds
+     * @return the new filter
+     */
+    private static String dateFilter(final String filter, final long from, final long to) {
+        final SimpleDateFormat format = new SimpleDateFormat(DATE_TIME_PATTERN);
+        format.setTimeZone(TimeZone.getTimeZone(UTC));
+        return filter + CREATED_AFTER_FILTER + format.format(new Date(from))
+                + CREATED_BEFORE_FILTER + format.format(new Date(to));
+    }
+
+    /**
+     * Count issues matching a query
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query
+     * @return the number of issues
      * @throws IOException when connecting the server
      * @throws BadSonarQubeRequestException A request is not recognized by the server
      */
-    public List<Map> getRawIssues() throws IOException, BadSonarQubeRequestException {
-        // results variable
-        final List<Map> res = new ArrayList<>();
+    private int requestCount(final String confirmed, final String filter)
+            throws IOException, BadSonarQubeRequestException {
+        return requestIssuesPage(1, 1, confirmed, filter, false).total;
+    }
 
-        // stop condition
-        boolean goon = true;
-        // flag when there are too many violation (> MAXIMUM_ISSUES_LIMIT)
-        boolean overflow = false;
-        // current page
-        int page = 1;
+    /**
+     * Get values of a facet for issues matching a query
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query
+     * @param facet name of the facet
+     * @return values of the facet with their count, without empty ones
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private List<Value> requestFacet(final String confirmed, final String filter, final String facet)
+            throws IOException, BadSonarQubeRequestException {
+        final String request = String.format(getRequest(GET_ISSUES_FACET_REQUEST),
+                getUrl(), getProjectKey(), confirmed, facet, filter);
+        final JsonObject jo = request(request);
+        final Facet[] facets = getGson().fromJson(jo.get(FACETS), Facet[].class);
 
-        // search all issues of the project
-        while(goon) {
-            // get maximum number of results per page
-            final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
-            // prepare the url to get all the issues
-            final String request = String.format(getRequest(GET_ISSUES_REQUEST),
-                    getUrl(), getProjectKey(), maxPerPage, page, CONFIRMED);
-            // perform the request to the server
-            final JsonObject jo = request(request);
-            // transform json to Issue objects
-            final Map [] tmp = (getGson().fromJson(jo.get(ISSUES), Map[].class));
-            // add them to the final result
-            res.addAll(Arrays.asList(tmp));
-            // check next results' pages
-            int number = (jo.get(TOTAL).getAsInt());
-
-            // check overflow
-            if(number > MAXIMUM_ISSUES_LIMIT) {
-                number = MAXIMUM_ISSUES_LIMIT;
-                overflow = true;
+        final List<Value> values = new ArrayList<>();
+        for(Facet current : facets) {
+            if(current.getProperty().equals(facet)) {
+                for(Value value : current.getValues()) {
+                    if(value.getCount() > 0) {
+                        values.add(value);
+                    }
+                }
             }
+        }
+        return values;
+    }
 
-            goon = page* maxPerPage < number;
-            page++;
+    /**
+     * Get the creation date of the oldest or the newest issue matching a query
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query
+     * @param oldest true for the oldest issue, false for the newest
+     * @return a date in milliseconds
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private long requestCreationDate(final String confirmed, final String filter, final boolean oldest)
+            throws IOException, BadSonarQubeRequestException {
+        final String request = String.format(getRequest(GET_ISSUES_BY_DATE_REQUEST),
+                getUrl(), getProjectKey(), confirmed, oldest, filter);
+        final JsonObject jo = request(request);
+        final String date = jo.getAsJsonArray(ISSUES).get(0).getAsJsonObject()
+                .get(CREATION_DATE).getAsString();
+        return parseDate(date);
+    }
+
+    /**
+     * Request a page of issues and read it as a stream
+     * @param maxPerPage number of issues per page
+     * @param page index of the page to request
+     * @param confirmed equals "true" if Unconfirmed and "false" if confirmed
+     * @param filter additional parameters of the query
+     * @param withRaw true to also convert issues to raw maps
+     * @return issues of the page
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private IssuesPage requestIssuesPage(final int maxPerPage, final int page,
+                                         final String confirmed, final String filter,
+                                         final boolean withRaw)
+            throws IOException, BadSonarQubeRequestException {
+        // prepare the url to get all the issues
+        final String request = String.format(getRequest(GET_ISSUES_REQUEST),
+                getUrl(), getProjectKey(), maxPerPage, page, confirmed, filter);
+        // perform the request to the server
+        return streamRequest(request, reader -> readIssuesPage(reader, withRaw));
+    }
+
+    /**
+     * Read a page of issues from a json stream: issues are converted one by one
+     * to Issue objects (with their language) and, if asked, to raw maps;
+     * fields which are not needed (like facets) are skipped
+     * @param reader json stream of the server's response
+     * @param withRaw true to also convert issues to raw maps
+     * @return issues of the page
+     * @throws IOException when reading the stream
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private IssuesPage readIssuesPage(final JsonReader reader, final boolean withRaw)
+            throws IOException, BadSonarQubeRequestException {
+        final IssuesPage page = new IssuesPage(withRaw);
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            switch (reader.nextName()) {
+                case TOTAL:
+                    page.total = reader.nextInt();
+                    break;
+                case ISSUES:
+                    reader.beginArray();
+                    while(reader.hasNext()) {
+                        if(withRaw) {
+                            // a single issue is loaded to be converted twice
+                            final JsonElement issue = JSON_PARSER.parse(reader);
+                            page.issues.add(getGson().fromJson(issue, Issue.class));
+                            page.rawIssues.add(getGson().fromJson(issue, Map.class));
+                        } else {
+                            page.issues.add(getGson().fromJson(reader, Issue.class));
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                case RULES:
+                    reader.beginArray();
+                    while(reader.hasNext()) {
+                        addRuleLanguage(getGson().fromJson(reader, Rule.class));
+                    }
+                    reader.endArray();
+                    break;
+                case ERRORS:
+                    checkErrors(JSON_PARSER.parse(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
         }
+        reader.endObject();
 
-        // in case of overflow we log the problem
-        if(overflow) {
-            LOGGER.warning(StringManager.string(StringManager.ISSUES_OVERFLOW_MSG));
+        // association of issues and languages, rules come after issues in the response
+        setIssuesLanguage(page.issues);
+
+        return page;
+    }
+
+    /**
+     * Remember the display name of the programming language of a rule
+     * @param rule rule containing language information
+     */
+    private void addRuleLanguage(final Rule rule) {
+        final String language = rule.getLangName();
+        rulesLanguages.put(rule.getKey(), language == null ? StringManager.EMPTY : language);
+    }
+
+    /**
+     * Set the language of each issues
+     * @param issues a list of issues to set
+     */
+    private void setIssuesLanguage(final List<Issue> issues) {
+        // for each issue we associate the corresponding programming language
+        // thanks to the rules already read
+        for(Issue issue : issues) {
+            issue.setLanguage(rulesLanguages.getOrDefault(issue.getRule(), StringManager.EMPTY));
         }
+    }
 
-        // return the issues
-        return res;
+    /**
+     * Get all the issues of a project in a raw format (map)
+     * They are downloaded at the same time as getIssues()' ones
+     * @return Array containing all the issues as maps
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    public List<Map> getRawIssues() throws IOException, BadSonarQubeRequestException {
+        loadConfirmedIssues();
+        return Collections.unmodifiableList(rawIssues);
     }
 
     /**
@@ -264,4 +703,66 @@ public class IssuesProvider extends AbstractDataProvider {
         // return list of facets
         return res;
     }
+
+    /**
+     * Issues gathered from one or several pages
+     */
+    private static final class IssuesPage {
+        /**
+         * Total number of issues on the server
+         */
+        private int total;
+        /**
+         * Issues as objects
+         */
+        private final List<Issue> issues;
+        /**
+         * Issues as raw maps, null if not asked
+         */
+        private final List<Map> rawIssues;
+
+        /**
+         * Constructor
+         * @param withRaw true to also gather raw maps
+         */
+        private IssuesPage(final boolean withRaw) {
+            this.issues = new ArrayList<>();
+            this.rawIssues = withRaw ? new ArrayList<>() : null;
+        }
+
+        /**
+         * Append issues of another page
+         * @param page page to append
+         */
+        private void add(final IssuesPage page) {
+            issues.addAll(page.issues);
+            if(rawIssues != null) {
+                rawIssues.addAll(page.rawIssues);
+            }
+        }
+    }
+
+    /**
+     * Part of the issues of a project, small enough to be requested
+     */
+    private static final class Slice {
+        /**
+         * Additional parameters of the query
+         */
+        private final String filter;
+        /**
+         * Number of issues in the slice
+         */
+        private final int total;
+
+        /**
+         * Constructor
+         * @param pFilter additional parameters of the query
+         * @param pTotal number of issues in the slice
+         */
+        private Slice(final String pFilter, final int pTotal) {
+            this.filter = pFilter;
+            this.total = pTotal;
+        }
+    }
 }
@@ -76,7 +76,7 @@ public class LanguageProvider extends AbstractDataProvider {
     public Map<String, Language> getLanguages() throws IOException, BadSonarQubeRequestException {
         // send a request to sonarqube server and return th response as a json object
         // if there is an error on server side this method throws an exception
-        final JsonObject jo = request(String.format(getRequest(GET_LANGUAGES), getUrl()));
+        final JsonObject jo = cachedRequest(String.format(getRequest(GET_LANGUAGES), getUrl()));
         final Language[] languagesList = getGson().fromJson(jo.get(LANGUAGES_FIELD),
                 Language[].class);
 
@@ -0,0 +1,192 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.providers;
+
+import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
+import fr.cnes.sonar.report.model.ProfileData;
+import fr.cnes.sonar.report.model.Project;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Resources of quality profiles shared by all reports of the process:
+ * a profile is downloaded once per state of the server (its key and the
+ * date of the last change of its rules), even when several projects or
+ * reports running at the same time use it
+ * @author lequal
+ */
+final class ProfileRepository {
+
+    /**
+     * Separator between the parts of an entry's identifier
+     */
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Resources of each profile indexed by server, token and profile's key,
+     * only the last known state of a profile is kept
+     */
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to forbid instantiation of this class
+     */
+    private ProfileRepository() {}
+
+    /**
+     * Give the resources of a profile, loading them if they are not known
+     * for this state of the profile or older than the ttl
+     * @param url url of the server
+     * @param token token used for requests
+     * @param key key of the profile
+     * @param rulesUpdatedAt date of the last change of the profile's rules
+     * @param ttl time (in milliseconds) during which loaded resources are reused
+     * @param loader downloads the resources of the profile
+     * @return resources of the profile
+     * @throws IOException when contacting the server
+     * @throws BadSonarQubeRequestException when the server does not understand a request
+     */
+    static Resources get(final String url, final String token, final String key,
+                         final String rulesUpdatedAt, final long ttl,
+                         final Callable<Resources> loader)
+            throws IOException, BadSonarQubeRequestException {
+        final String id = url + SEPARATOR + token + SEPARATOR + key;
+        final long now = System.currentTimeMillis();
+
+        // find a valid entry or store a new one, a concurrent caller may win the race
+        Entry entry = null;
+        while(entry == null) {
+            final Entry current = ENTRIES.get(id);
+            if(current != null && current.isValid(rulesUpdatedAt, now, ttl)) {
+                entry = current;
+            } else {
+                final Entry created = new Entry(rulesUpdatedAt, now, new FutureTask<>(loader));
+                final boolean stored = current == null ? ENTRIES.putIfAbsent(id, created) == null
+                        : ENTRIES.replace(id, current, created);
+                if(stored) {
+                    created.task.run();
+                    entry = created;
+                }
+            }
+        }
+
+        // failed loadings are not kept so that next reports try again
+        try {
+            return AbstractDataProvider.waitFor(entry.task);
+        } catch (IOException | BadSonarQubeRequestException | RuntimeException e) {
+            ENTRIES.remove(id, entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Forget all loaded profiles, loadings in progress are not stopped
+     */
+    static void clear() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * Resources of a profile which do not depend on the project
+     */
+    static final class Resources {
+        /**
+         * Configuration and rules of the profile
+         */
+        private final ProfileData data;
+        /**
+         * Projects linked to the profile
+         */
+        private final Project[] projects;
+
+        /**
+         * Complete constructor
+         * @param pData configuration and rules of the profile
+         * @param pProjects projects linked to the profile
+         */
+        Resources(final ProfileData pData, final Project[] pProjects) {
+            this.data = pData;
+            this.projects = pProjects.clone();
+        }
+
+        /**
+         * Getter for data
+         * @return configuration and rules of the profile
+         */
+        ProfileData getData() {
+            return data;
+        }
+
+        /**
+         * Getter for projects
+         * @return projects linked to the profile
+         */
+        Project[] getProjects() {
+            return projects.clone();
+        }
+    }
+
+    /**
+     * Resources of a profile being loaded or loaded
+     */
+    private static final class Entry {
+        /**
+         * State of the profile when it was loaded
+         */
+        private final String rulesUpdatedAt;
+        /**
+         * Date (in milliseconds) of the loading
+         */
+        private final long loadedAt;
+        /**
+         * Loading of the resources
+         */
+        private final FutureTask<Resources> task;
+
+        /**
+         * Complete constructor
+         * @param pRulesUpdatedAt state of the profile
+         * @param pLoadedAt date of the loading
+         * @param pTask loading of the resources
+         */
+        private Entry(final String pRulesUpdatedAt, final long pLoadedAt,
+                      final FutureTask<Resources> pTask) {
+            this.rulesUpdatedAt = pRulesUpdatedAt;
+            this.loadedAt = pLoadedAt;
+            this.task = pTask;
+        }
+
+        /**
+         * Tell whether the entry can be used for a state of the profile,
+         * a loading in progress is always shared
+         * @param pRulesUpdatedAt current state of the profile
+         * @param now current date in milliseconds
+         * @param ttl time (in milliseconds) during which loaded resources are reused
+         * @return true if the entry can be used
+         */
+        private boolean isValid(final String pRulesUpdatedAt, final long now, final long ttl) {
+            return Objects.equals(rulesUpdatedAt, pRulesUpdatedAt)
+                    && (!task.isDone() || now - loadedAt < ttl);
+        }
+    }
+}
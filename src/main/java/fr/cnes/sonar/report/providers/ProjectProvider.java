@@ -24,6 +24,9 @@ import fr.cnes.sonar.report.model.ProfileMetaData;
 import fr.cnes.sonar.report.model.Project;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Provides basic project's information
@@ -31,6 +34,15 @@ import java.io.IOException;
  */
 public class ProjectProvider extends AbstractDataProvider {
 
+    /**
+     * Wildcard matching any sequence of characters in a project's key pattern
+     */
+    public static final String WILDCARD = "*";
+    /**
+     * Regular expression equivalent to the wildcard
+     */
+    private static final String ANY_CHARACTERS = ".*";
+
 	/**
 	 * Used to get language data for the projects
 	 */
@@ -83,4 +95,46 @@ public class ProjectProvider extends AbstractDataProvider {
 
         return project;
     }
+
+    /**
+     * Get the keys of all projects matching a pattern
+     * @param keyPattern pattern of keys where WILDCARD matches any characters, like "team-*"
+     * @return keys of matching projects, in server's order
+     * @throws IOException when contacting the server
+     * @throws BadSonarQubeRequestException when the server does not understand the request
+     */
+    public List<String> searchProjectKeys(String keyPattern)
+            throws IOException, BadSonarQubeRequestException {
+        // translate the pattern: every part between wildcards is matched literally
+        final StringBuilder regex = new StringBuilder();
+        for(String part : keyPattern.split(Pattern.quote(WILDCARD), -1)) {
+            if(regex.length() > 0) {
+                regex.append(ANY_CHARACTERS);
+            }
+            regex.append(Pattern.quote(part));
+        }
+        final Pattern pattern = Pattern.compile(regex.toString());
+
+        // browse all pages of projects
+        final List<String> keys = new ArrayList<>();
+        final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
+        boolean goon = true;
+        int page = 1;
+        while(goon) {
+            final JsonObject jo = request(String.format(getRequest(GET_PROJECTS_REQUEST),
+                    getUrl(), maxPerPage, page));
+            final Project[] projects = getGson().fromJson(jo.get(COMPONENTS), Project[].class);
+            for(Project project : projects) {
+                if(pattern.matcher(project.getKey()).matches()) {
+                    keys.add(project.getKey());
+                }
+            }
+            // check if there are other pages
+            final int total = jo.getAsJsonObject(PAGING).get(TOTAL).getAsInt();
+            goon = page * maxPerPage < total;
+            page++;
+        }
+
+        return keys;
+    }
 }
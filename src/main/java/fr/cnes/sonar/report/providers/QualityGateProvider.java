@@ -24,7 +24,6 @@ import fr.cnes.sonar.report.model.QualityGate;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -41,6 +40,14 @@ public class QualityGateProvider extends AbstractDataProvider {
      * Field to find in json corresponding to the quality gate's id
      */
     private static final String KEY = "key";
+    /**
+     * Field to find in json corresponding to the quality gate's name
+     */
+    private static final String NAME = "name";
+    /**
+     * Field to find in json saying if the quality gate is the default one
+     */
+    private static final String IS_DEFAULT = "isDefault";
 
     /**
      * Complete constructor
@@ -77,7 +84,7 @@ public class QualityGateProvider extends AbstractDataProvider {
             request = String.format(getRequest(GET_QUALITY_GATES_DETAILS_REQUEST),
                     getUrl(), i.getName().replaceAll(" ", "%20"));
             // perform previous request
-            jo = request(request);
+            jo = cachedRequest(request);
 
             // put it in configuration field
             i.setConf(jo.toString());
@@ -95,42 +102,36 @@ public class QualityGateProvider extends AbstractDataProvider {
     }
 
     /**
-     * Return the quality gate corresponding to the project
+     * Return the quality gate corresponding to the project, only its details are requested
      * @return The Quality Gate
      * @throws IOException when there are problem reading json
-     * @throws UnknownQualityGateException when there is an error on a quality gate
+     * @throws UnknownQualityGateException when the project has no quality gate
      * @throws BadSonarQubeRequestException when the request is incorrect
      */
     public QualityGate getProjectQualityGate()
             throws IOException, UnknownQualityGateException, BadSonarQubeRequestException {
-        QualityGate res = null;
-        QualityGate tmp;
-        boolean find = false;
-        // get all the quality gates
-        final List<QualityGate> qualityGates = getQualityGates();
-        // request the criteria
+        // request the project's quality gate
         final String request = String.format(getRequest(GET_QUALITY_GATE_REQUEST),
                 getUrl(), getProjectKey());
 
         // perform previous request
         final JsonObject jo = request(request);
-        final String key = jo.getAsJsonObject(QUALITY_GATE)
-                .get(KEY).getAsString();
-
-        // search for the good quality gate
-        final Iterator<QualityGate> iterator = qualityGates.iterator();
-        while (iterator.hasNext() && !find) {
-            tmp = iterator.next();
-            if(tmp.getId().equals(key)) {
-                res = tmp;
-                find = true;
-            }
+        final JsonObject reference = jo.getAsJsonObject(QUALITY_GATE);
+        // check it was given
+        if(reference == null || !reference.has(KEY) || !reference.has(NAME)) {
+            throw new UnknownQualityGateException(getProjectKey());
         }
 
-        // check if it was found
-        if(!find) {
-            throw new UnknownQualityGateException(key);
-        }
+        final QualityGate res = new QualityGate();
+        res.setId(reference.get(KEY).getAsString());
+        res.setName(reference.get(NAME).getAsString());
+        res.setDefault(reference.has(IS_DEFAULT) && reference.get(IS_DEFAULT).getAsBoolean());
+
+        // request the criteria of this quality gate only
+        final String detailsRequest = String.format(getRequest(GET_QUALITY_GATES_DETAILS_REQUEST),
+                getUrl(), res.getName().replaceAll(" ", "%20"));
+        // put it in configuration field
+        res.setConf(cachedRequest(detailsRequest).toString());
 
         return res;
     }
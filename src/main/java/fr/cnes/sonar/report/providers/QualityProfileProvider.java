@@ -23,9 +23,15 @@ import fr.cnes.sonar.report.utils.StringManager;
 import fr.cnes.sonar.report.model.*;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 
 /**
  * Provides quality gates
@@ -55,73 +61,149 @@ public class QualityProfileProvider extends AbstractDataProvider {
         final List<QualityProfile> res = new ArrayList<>();
 
         // Get all quality profiles (metadata)
-        String request = String.format(getRequest(GET_QUALITY_PROFILES_REQUEST),
+        final String request = String.format(getRequest(GET_QUALITY_PROFILES_REQUEST),
                 getUrl(), getProjectKey());
         // perform the previous request
-        JsonObject jo = request(request);
+        final JsonObject jo = request(request);
 
         // Get quality profiles resources
         final ProfileMetaData[] metaData = (getGson().fromJson(
                 jo.get(PROFILES), ProfileMetaData[].class));
-        for (ProfileMetaData profileMetaData : metaData) {
-            final ProfileData profileData = new ProfileData();
-            // get configuration
-            request = String.format(getRequest(GET_QUALITY_PROFILES_CONF_REQUEST),
-                    getUrl(),
-                    profileMetaData.getLanguage().replaceAll(String.valueOf(StringManager.SPACE),
-                    StringManager.URI_SPACE),
-                    profileMetaData.getName().replaceAll(String.valueOf(StringManager.SPACE),
-                    StringManager.URI_SPACE));
-            // perform request to sonarqube server
-            final String xml = stringRequest(request);
-            // add configuration as string to the profile
-            profileData.setConf(xml);
-
-            // get the rules of the profile
-            // stop condition
-            boolean goon = true;
-            // page result index
-            int page = 1;
-            // contain the resulted rules
-            final List<Rule> rules = new ArrayList<>();
-            // profile's key formatted for url (%20 instead of ' ')
-            final String profileKey = profileMetaData.getKey().replaceAll(
-                    String.valueOf(StringManager.SPACE),
-                    StringManager.URI_SPACE);
-            // continue until there are no more results
-            while(goon) {
-                // prepare the request
-                request = String.format(getRequest(GET_QUALITY_PROFILES_RULES_REQUEST),
-                        getUrl(), profileKey,
-                        Integer.valueOf(getRequest(MAX_PER_PAGE_SONARQUBE)), page);
-                // perform the previous request to sonarqube server
-                jo = request(request);
-                // convert json to Rule objects
-                final Rule [] tmp = (getGson().fromJson(jo.get(RULES), Rule[].class));
-                // add rules to the result list
-                rules.addAll(Arrays.asList(tmp));
-
-                // check if there are other pages
-                final int number = (jo.get(TOTAL).getAsInt());
-                goon = page* Integer.valueOf(getRequest(MAX_PER_PAGE_SONARQUBE)) < number;
-                page++;
+        final long ttl = RequestManager.getInstance().getResponseCache().getTtl();
+        // maximum number of profiles loaded at the same time
+        final int parallelism = Math.max(1, Integer.parseInt(getRequest(PROFILES_PARALLELISM)));
+        // profiles only wait for their requests, which are executed by the pool
+        // of RequestManager so that they can not wait for each other
+        final ExecutorService profilesExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(metaData.length, parallelism)));
+        try {
+            final List<Future<ProfileRepository.Resources>> futures = new ArrayList<>();
+            for (ProfileMetaData profileMetaData : metaData) {
+                // download resources only if this state of the profile is not known yet
+                futures.add(profilesExecutor.submit(() -> ProfileRepository.get(getUrl(),
+                        getToken(), profileMetaData.getKey(), profileMetaData.getRulesUpdatedAt(),
+                        ttl, () -> getResources(profileMetaData))));
             }
-            profileData.setRules(rules);
-
-            // get projects linked to the profile
-            request = String.format(getRequest(GET_QUALITY_PROFILES_PROJECTS_REQUEST),
-                    getUrl(), profileMetaData.getKey());
-            // perform a request
-            jo = request(request);
-            // convert json to Project objects
-            final Project[] projects = (getGson().fromJson(jo.get(RESULTS), Project[].class));
-
-            // create and add the new quality profile
-            final QualityProfile qualityProfile = new QualityProfile(profileData, profileMetaData);
-            qualityProfile.setProjects(projects);
-            res.add(qualityProfile);
+
+            // every profile is waited for, even after a failure: a loader shared
+            // with other reports must keep the pool executing its requests
+            awaitAll(futures);
+
+            // the first failure, if any, is thrown here
+            for (int i = 0; i < metaData.length; i++) {
+                final ProfileRepository.Resources resources = waitFor(futures.get(i));
+                // create and add the new quality profile
+                final QualityProfile qualityProfile =
+                        new QualityProfile(resources.getData(), metaData[i]);
+                qualityProfile.setProjects(resources.getProjects());
+                res.add(qualityProfile);
+            }
+        } finally {
+            // all loaders are finished unless the thread was interrupted
+            profilesExecutor.shutdown();
         }
 
         return res;
     }
+
+    /**
+     * Forget the profiles loaded by previous reports, next reports download them again
+     */
+    public static void clearProfiles() {
+        ProfileRepository.clear();
+    }
+
+    /**
+     * Wait for the end of all tasks, successful or not
+     * @param futures tasks to wait for
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    private static void awaitAll(final List<? extends Future<?>> futures)
+            throws InterruptedIOException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                // failures are rethrown by waitFor once all tasks are done
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Download the configuration, the rules and the linked projects of a profile,
+     * all requests are sent at the same time once the number of rules pages is known
+     * @param profileMetaData metadata of the profile
+     * @return resources of the profile
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private ProfileRepository.Resources getResources(final ProfileMetaData profileMetaData)
+            throws IOException, BadSonarQubeRequestException {
+        // get configuration
+        final String confRequest = String.format(getRequest(GET_QUALITY_PROFILES_CONF_REQUEST),
+                getUrl(),
+                profileMetaData.getLanguage().replaceAll(String.valueOf(StringManager.SPACE),
+                StringManager.URI_SPACE),
+                profileMetaData.getName().replaceAll(String.valueOf(StringManager.SPACE),
+                StringManager.URI_SPACE));
+        final RequestManager requestManager = RequestManager.getInstance();
+        // the profile is loaded because its state changed: the disk cache is not used
+        final Future<String> conf = requestManager.submit(() -> stringRequest(confRequest));
+
+        // get projects linked to the profile
+        final String projectsRequest = String.format(
+                getRequest(GET_QUALITY_PROFILES_PROJECTS_REQUEST),
+                getUrl(), profileMetaData.getKey());
+        final Future<JsonObject> projects = requestManager.submit(() -> request(projectsRequest));
+
+        // get the first page of rules which gives the number of pages
+        // profile's key formatted for url (%20 instead of ' ')
+        final String profileKey = profileMetaData.getKey().replaceAll(
+                String.valueOf(StringManager.SPACE),
+                StringManager.URI_SPACE);
+        final int maxPerPage = Integer.parseInt(getRequest(MAX_PER_PAGE_SONARQUBE));
+        final JsonObject firstPage = waitFor(requestManager.submit(
+                () -> requestRules(profileKey, maxPerPage, 1)));
+        final int number = firstPage.get(TOTAL).getAsInt();
+        // request other pages at the same time
+        final List<Future<JsonObject>> pages = new ArrayList<>();
+        for(int page = 2; (page - 1) * maxPerPage < number; page++) {
+            final int current = page;
+            pages.add(requestManager.submit(() -> requestRules(profileKey, maxPerPage, current)));
+        }
+
+        // contain the resulted rules, in page order
+        final List<Rule> rules = new ArrayList<>(number);
+        rules.addAll(Arrays.asList(getGson().fromJson(firstPage.get(RULES), Rule[].class)));
+        for(Future<JsonObject> page : pages) {
+            rules.addAll(Arrays.asList(getGson().fromJson(waitFor(page).get(RULES), Rule[].class)));
+        }
+
+        final ProfileData profileData = new ProfileData();
+        // add configuration as string to the profile
+        profileData.setConf(waitFor(conf));
+        profileData.setRules(rules);
+
+        return new ProfileRepository.Resources(profileData,
+                getGson().fromJson(waitFor(projects).get(RESULTS), Project[].class));
+    }
+
+    /**
+     * Request a page of the rules of a profile
+     * @param profileKey key of the profile formatted for url
+     * @param maxPerPage number of rules per page
+     * @param page index of the page
+     * @return the page as a json object
+     * @throws IOException when connecting the server
+     * @throws BadSonarQubeRequestException A request is not recognized by the server
+     */
+    private JsonObject requestRules(final String profileKey, final int maxPerPage, final int page)
+            throws IOException, BadSonarQubeRequestException {
+        return request(String.format(getRequest(GET_QUALITY_PROFILES_RULES_REQUEST),
+                getUrl(), profileKey, maxPerPage, page));
+    }
 }
@@ -17,28 +17,207 @@
 
 package fr.cnes.sonar.report.providers;
 
+import fr.cnes.sonar.report.exceptions.BadSonarQubeRequestException;
 import fr.cnes.sonar.report.utils.StringManager;
-import org.apache.commons.lang.StringUtils;
-import org.sonarqube.ws.client.GetRequest;
-import org.sonarqube.ws.client.HttpConnector;
-import org.sonarqube.ws.client.WsResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manage http requests.
  *
+ * Connections are pooled and kept alive between requests: one http client
+ * is created for each couple (server, token) and all of them share the same
+ * connection pool. Requests sent at the same time by all reports are executed
+ * by a single pool of threads, bounded by the number of pooled connections.
+ *
  * @author lequal
  */
 public final class RequestManager {
 
+    /**
+     * Name of the property giving the maximum number of connections to a same server
+     */
+    private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "HTTP_MAX_CONNECTIONS_PER_ROUTE";
+    /**
+     * Name of the property giving the maximum number of connections for all servers
+     */
+    private static final String HTTP_MAX_CONNECTIONS_TOTAL = "HTTP_MAX_CONNECTIONS_TOTAL";
+    /**
+     * Name of the property giving the time (in seconds) before closing an idle connection
+     */
+    private static final String HTTP_IDLE_TIMEOUT = "HTTP_IDLE_TIMEOUT";
+    /**
+     * Name of the property giving the time (in seconds) during which a cached response is used
+     */
+    private static final String CACHE_TTL = "CACHE_TTL";
+    /**
+     * Name of the property giving the maximum size (in bytes) of cached responses
+     */
+    private static final String CACHE_MAX_SIZE = "CACHE_MAX_SIZE";
+    /**
+     * Name of the property enabling the persistent cache of responses (yes or no)
+     */
+    private static final String CACHE_ENABLED = "CACHE_ENABLED";
+    /**
+     * Name of the property giving the folder of cached responses, relative to the user's home
+     */
+    private static final String CACHE_DIRECTORY = "CACHE_DIRECTORY";
+    /**
+     * Value of the property CACHE_ENABLED enabling the cache
+     */
+    private static final String YES = "yes";
+    /**
+     * Name of the system property giving the user's home
+     */
+    private static final String USER_HOME = "user.home";
+    /**
+     * Prefix of the names of the threads executing requests
+     */
+    private static final String REQUEST_THREAD_NAME = "cnesreport-request-";
+    /**
+     * User agent sent to SonarQube
+     */
+    private static final String USER_AGENT = "cnesreport";
+    /**
+     * Timeout (in milliseconds) for establishing a connection
+     */
+    private static final int CONNECT_TIMEOUT = 8000;
+    /**
+     * Timeout (in milliseconds) when waiting for data
+     */
+    private static final int READ_TIMEOUT = 60000;
+    /**
+     * Prefix of the authorization header value
+     */
+    private static final String BASIC = "Basic ";
+    /**
+     * Separator between login and password in basic authentication
+     */
+    private static final String COLON = ":";
+    /**
+     * Message of the exception thrown when the server answer with an error code
+     */
+    private static final String HTTP_ERROR_MESSAGE = "Error %d on %s : %s";
+
     /**
      * Instance of the singleton
      */
     private static RequestManager ourInstance = null;
 
+    /**
+     * Connection pool shared by all clients
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * Clients indexed by server and token
+     */
+    private final Map<String, CloseableHttpClient> clients;
+
+    /**
+     * Pool of threads executing requests sent at the same time, shared by all reports
+     */
+    private final ThreadPoolExecutor requestExecutor;
+
+    /**
+     * Persistent cache of responses which rarely change
+     */
+    private volatile ResponseCache responseCache;
+
+    /**
+     * Number of executed requests
+     */
+    private final AtomicLong requestCount;
+
+    /**
+     * Number of physical connections opened
+     */
+    private final AtomicLong openedConnectionCount;
+
     /**
      * Use of private constructor to singletonize this class
      */
-    private RequestManager() { }
+    private RequestManager() {
+        this.clients = new ConcurrentHashMap<>();
+        this.requestCount = new AtomicLong();
+        this.openedConnectionCount = new AtomicLong();
+
+        // count each physical connection created by the pool
+        final ManagedHttpClientConnectionFactory connectionFactory =
+                new ManagedHttpClientConnectionFactory() {
+            @Override
+            public ManagedHttpClientConnection create(final HttpRoute route,
+                                                      final ConnectionConfig config) {
+                openedConnectionCount.incrementAndGet();
+                return super.create(route, config);
+            }
+        };
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(connectionFactory);
+        this.connectionManager.setDefaultMaxPerRoute(
+                Integer.parseInt(AbstractDataProvider.getRequest(HTTP_MAX_CONNECTIONS_PER_ROUTE)));
+        final int maxTotal = Integer.parseInt(AbstractDataProvider.getRequest(HTTP_MAX_CONNECTIONS_TOTAL));
+        this.connectionManager.setMaxTotal(maxTotal);
+
+        // close connections which stayed idle for too long
+        final long idleTimeout = Long.parseLong(AbstractDataProvider.getRequest(HTTP_IDLE_TIMEOUT));
+        final IdleConnectionEvictor evictor = new IdleConnectionEvictor(connectionManager,
+                idleTimeout, TimeUnit.SECONDS);
+        evictor.start();
+
+        // more threads than connections would only wait for the connection pool,
+        // idle threads end like idle connections
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.requestExecutor = new ThreadPoolExecutor(maxTotal, maxTotal, idleTimeout, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable,
+                            REQUEST_THREAD_NAME + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.requestExecutor.allowCoreThreadTimeOut(true);
+
+        this.responseCache = createCache(
+                YES.equals(AbstractDataProvider.getRequest(CACHE_ENABLED).trim()),
+                AbstractDataProvider.getRequest(CACHE_DIRECTORY).trim());
+    }
 
     /**
      * Return the unique instance
@@ -56,19 +235,232 @@ public final class RequestManager {
      * @param url url to request
      * @param token token to authenticate to SonarQube
      * @return response as string
+     * @throws IOException when contacting the server or if it answered with an error code
+     */
+    public String get(final String url, final String token) throws IOException {
+        try (CloseableHttpResponse response = execute(new HttpGet(url), token)) {
+            final HttpEntity entity = response.getEntity();
+            // read the whole entity so that the connection can go back to the pool
+            return entity == null ? StringManager.EMPTY :
+                    EntityUtils.toString(entity, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Execute a get http request and read the response's body as a stream
+     * @param url url to request
+     * @param token token to authenticate to SonarQube
+     * @param responseReader reader of the response's body
+     * @param <T> type of the read result
+     * @return result of responseReader
+     * @throws IOException when contacting the server or if it answered with an error code
+     * @throws BadSonarQubeRequestException if responseReader detects a SonarQube error
+     */
+    public <T> T get(final String url, final String token, final ResponseReader<T> responseReader)
+            throws IOException, BadSonarQubeRequestException {
+        try (CloseableHttpResponse response = execute(new HttpGet(url), token)) {
+            final HttpEntity entity = response.getEntity();
+            final T result;
+            if (entity == null) {
+                result = responseReader.read(new StringReader(StringManager.EMPTY));
+            } else {
+                final Reader reader = new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8);
+                result = responseReader.read(reader);
+                // read what could remain so that the connection can go back to the pool
+                EntityUtils.consume(entity);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Execute a get http request whose response rarely changes: the response
+     * is read from the persistent cache while it is fresh, then revalidated
+     * with the server if possible
+     * @param url url to request
+     * @param token token to authenticate to SonarQube
+     * @return response as string
+     * @throws IOException when contacting the server or if it answered with an error code
      */
-    public String get(final String url, final String token) {
-        String baseUrl = StringUtils.substringBeforeLast(url, "/");
-        String path = StringUtils.substringAfterLast(url, "/");
-        final HttpConnector.Builder builder = HttpConnector.newBuilder()
-            .userAgent("cnesreport")
-            .url(baseUrl);
+    public String getCached(final String url, final String token) throws IOException {
+        final String result;
+        final ResponseCache responseCache = this.responseCache;
+        final ResponseCache.Entry entry = responseCache.get(url, token);
+        if(entry != null && responseCache.isFresh(entry)) {
+            responseCache.hit(entry);
+            result = entry.getBody();
+        } else {
+            final HttpGet httpGet = new HttpGet(url);
+            // ask the server whether the cached response is still valid
+            if(entry != null && entry.getEtag() != null) {
+                httpGet.addHeader(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+            }
+            if(entry != null && entry.getLastModified() != null) {
+                httpGet.addHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+            }
+            try (CloseableHttpResponse response = execute(httpGet, token)) {
+                final HttpEntity entity = response.getEntity();
+                if(entry != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    EntityUtils.consume(entity);
+                    responseCache.revalidated(entry);
+                    result = entry.getBody();
+                } else {
+                    result = entity == null ? StringManager.EMPTY :
+                            EntityUtils.toString(entity, StandardCharsets.UTF_8);
+                    responseCache.put(url, token, result, getHeader(response, HttpHeaders.ETAG),
+                            getHeader(response, HttpHeaders.LAST_MODIFIED));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Execute a get http request and check its status
+     * @param httpGet request to execute
+     * @param token token to authenticate to SonarQube
+     * @return the successful or not modified response
+     * @throws IOException when contacting the server or if it answered with an error code
+     */
+    private CloseableHttpResponse execute(final HttpGet httpGet, final String token) throws IOException {
+        requestCount.incrementAndGet();
+        final CloseableHttpResponse response = getClient(httpGet.getURI(), token).execute(httpGet);
+        final int code = response.getStatusLine().getStatusCode();
+        if ((code < HttpStatus.SC_OK || code >= HttpStatus.SC_MULTIPLE_CHOICES)
+                && code != HttpStatus.SC_NOT_MODIFIED) {
+            try {
+                final String content = response.getEntity() == null ? StringManager.EMPTY :
+                        EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                throw new IOException(String.format(HTTP_ERROR_MESSAGE, code, httpGet.getURI(), content));
+            } finally {
+                response.close();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Give the value of a response's header
+     * @param response response to read
+     * @param name name of the header
+     * @return the value or null if the header is missing
+     */
+    private static String getHeader(final CloseableHttpResponse response, final String name) {
+        final Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Give the current state of the connection pool
+     * @return statistics about requests and connections
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        return new ConnectionPoolStatistics(requestCount.get(), openedConnectionCount.get(),
+                connectionManager.getTotalStats());
+    }
+
+    /**
+     * Execute a request on the pool shared by all reports, the task must
+     * not wait for other tasks of this pool
+     * @param task request to execute
+     * @param <T> type of the request's result
+     * @return the pending result of the request
+     */
+    public <T> Future<T> submit(final Callable<T> task) {
+        return requestExecutor.submit(task);
+    }
+
+    /**
+     * Replace the persistent cache of responses, requests already running
+     * keep using the previous one
+     * @param enabled false to contact the server for every request
+     * @param directory folder of cached responses, relative to the user's home if not absolute
+     */
+    public void configureCache(final boolean enabled, final String directory) {
+        this.responseCache = createCache(enabled, directory);
+    }
+
+    /**
+     * Create a persistent cache of responses configured by requests.properties
+     * @param enabled false to create a disabled cache
+     * @param directory folder of cached responses, relative to the user's home if not absolute
+     * @return the new cache
+     */
+    private static ResponseCache createCache(final boolean enabled, final String directory) {
+        File folder = new File(directory);
+        if(!folder.isAbsolute()) {
+            folder = new File(System.getProperty(USER_HOME), directory);
+        }
+        // a disabled cache has no time to live and never touches the disk
+        final long ttl = enabled ? Long.parseLong(AbstractDataProvider.getRequest(CACHE_TTL)) : 0L;
+        return new ResponseCache(folder, ttl,
+                Long.parseLong(AbstractDataProvider.getRequest(CACHE_MAX_SIZE)));
+    }
+
+    /**
+     * Give the persistent cache of responses and its statistics
+     * @return the cache used by getCached
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Get the client corresponding to a server and a token, create it if necessary
+     * @param uri uri of the request
+     * @param token token to authenticate to SonarQube
+     * @return a client sharing the connection pool
+     */
+    private CloseableHttpClient getClient(final URI uri, final String token) {
+        final String server = uri.getScheme() + COLON + uri.getRawAuthority();
+        return clients.computeIfAbsent(server + StringManager.SPACE + token,
+            key -> createClient(token));
+    }
+
+    /**
+     * Create a new client using the shared connection pool
+     * @param token token to authenticate to SonarQube
+     * @return a new client
+     */
+    private CloseableHttpClient createClient(final String token) {
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(CONNECT_TIMEOUT)
+                .setSocketTimeout(READ_TIMEOUT)
+                .build();
+
+        // the token is used as login with an empty password
+        // except if it is the default one (no authentication)
+        final List<Header> headers = new ArrayList<>();
         if(!StringManager.getProperty(StringManager.SONAR_TOKEN).equals(token)) {
-            builder.credentials(token, null);
+            final String credentials = Base64.getEncoder().encodeToString(
+                    (token + COLON).getBytes(StandardCharsets.UTF_8));
+            headers.add(new BasicHeader(HttpHeaders.AUTHORIZATION, BASIC + credentials));
         }
-        final HttpConnector httpConnector = builder.build();
-        WsResponse response = httpConnector.call(new GetRequest(path));
-        response.failIfNotSuccessful();
-        return response.content();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setConnectionReuseStrategy(DefaultConnectionReuseStrategy.INSTANCE)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setDefaultRequestConfig(requestConfig)
+                .setDefaultHeaders(headers)
+                .setUserAgent(USER_AGENT)
+                .build();
+    }
+
+    /**
+     * Read the body of a response
+     * @param <T> type of the read result
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+        /**
+         * Read the body of a successful response
+         * @param reader stream of the response's body
+         * @return the read result
+         * @throws IOException when reading the stream
+         * @throws BadSonarQubeRequestException if SonarQube sent an error
+         */
+        T read(Reader reader) throws IOException, BadSonarQubeRequestException;
     }
 }
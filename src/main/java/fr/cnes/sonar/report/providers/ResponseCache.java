@@ -0,0 +1,472 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.providers;
+
+import fr.cnes.sonar.report.utils.StringManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of SonarQube's responses which rarely change.
+ *
+ * Responses are stored on disk, indexed by url and token, and considered
+ * fresh during a given time; after that they are revalidated with their
+ * ETag or Last-Modified headers if the server gave some. When the cache
+ * is too big, the least recently used responses are deleted.
+ *
+ * @author lequal
+ */
+public final class ResponseCache {
+
+    /**
+     * Extension of files containing responses' bodies
+     */
+    private static final String BODY_EXTENSION = ".body";
+    /**
+     * Extension of files containing responses' metadata
+     */
+    private static final String META_EXTENSION = ".meta";
+    /**
+     * Extension of files being written
+     */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    /**
+     * Metadata field for the ETag header
+     */
+    private static final String ETAG = "etag";
+    /**
+     * Metadata field for the Last-Modified header
+     */
+    private static final String LAST_MODIFIED = "lastModified";
+    /**
+     * Metadata field for the date of the last validation, in milliseconds
+     */
+    private static final String VALIDATED_AT = "validatedAt";
+    /**
+     * Algorithm used to name files from urls and tokens
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    /**
+     * Format of a byte in hexadecimal
+     */
+    private static final String HEXADECIMAL = "%02x";
+    /**
+     * Pattern used to display statistics
+     */
+    private static final String TO_STRING_PATTERN =
+            "hits=%d, revalidated=%d, misses=%d, size=%d bytes";
+    /**
+     * Message logged when the date of use of a response cannot be changed
+     */
+    private static final String TOUCH_ERROR_MESSAGE = "Cannot update the date of use of %s";
+    /**
+     * Logger of this class
+     */
+    private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+
+    /**
+     * Folder containing cached responses
+     */
+    private final File directory;
+    /**
+     * Time (in milliseconds) during which a response is used without contacting the server
+     */
+    private final long ttl;
+    /**
+     * Maximum size (in bytes) of the cache on disk
+     */
+    private final long maxSize;
+    /**
+     * Current size (in bytes) of the cache on disk
+     */
+    private final AtomicLong size;
+    /**
+     * Number of responses read from the cache without contacting the server
+     */
+    private final AtomicLong hits;
+    /**
+     * Number of responses read from the cache after the server confirmed them
+     */
+    private final AtomicLong revalidations;
+    /**
+     * Number of responses downloaded
+     */
+    private final AtomicLong misses;
+
+    /**
+     * Complete constructor
+     * @param pDirectory folder containing cached responses
+     * @param pTtl time (in seconds) during which a response is fresh, 0 to disable the cache
+     * @param pMaxSize maximum size (in bytes) of the cache on disk, 0 to disable the cache
+     */
+    public ResponseCache(final File pDirectory, final long pTtl, final long pMaxSize) {
+        this.directory = pDirectory;
+        this.ttl = pTtl * 1000L;
+        this.maxSize = pMaxSize;
+        this.size = new AtomicLong();
+        this.hits = new AtomicLong();
+        this.revalidations = new AtomicLong();
+        this.misses = new AtomicLong();
+
+        if(isEnabled()) {
+            for(File file : listFiles()) {
+                size.addAndGet(file.length());
+            }
+        }
+    }
+
+    /**
+     * Tell whether responses must be cached
+     * @return false if the ttl or the maximum size is 0
+     */
+    public boolean isEnabled() {
+        return ttl > 0 && maxSize > 0;
+    }
+
+    /**
+     * Getter for ttl
+     * @return time (in milliseconds) during which a response is fresh
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Find the cached response of a request
+     * @param url url of the request
+     * @param token token used for the request
+     * @return the cached response or null if there is none
+     */
+    public Entry get(final String url, final String token) {
+        Entry entry = null;
+        final String name = getName(url, token);
+        final File body = new File(directory, name + BODY_EXTENSION);
+        final File meta = new File(directory, name + META_EXTENSION);
+        if(isEnabled() && body.isFile() && meta.isFile()) {
+            try(InputStream input = new FileInputStream(meta)) {
+                final Properties properties = new Properties();
+                properties.load(input);
+                entry = new Entry(name,
+                        new String(Files.readAllBytes(body.toPath()), StandardCharsets.UTF_8),
+                        properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED),
+                        Long.parseLong(properties.getProperty(VALIDATED_AT)));
+            } catch (IOException | NumberFormatException e) {
+                // the response will be downloaded again
+                LOGGER.log(Level.WARNING, e.getMessage(), e);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Tell whether a response can be used without contacting the server
+     * @param entry cached response
+     * @return true if the response is younger than the ttl
+     */
+    public boolean isFresh(final Entry entry) {
+        return System.currentTimeMillis() - entry.validatedAt < ttl;
+    }
+
+    /**
+     * Record that a cached response has been used without contacting the server
+     * @param entry cached response
+     */
+    public void hit(final Entry entry) {
+        hits.incrementAndGet();
+        touch(entry.name);
+    }
+
+    /**
+     * Record that the server confirmed a cached response, which is fresh again
+     * @param entry cached response
+     */
+    public void revalidated(final Entry entry) {
+        revalidations.incrementAndGet();
+        touch(entry.name);
+        try {
+            writeMeta(entry.name, entry.etag, entry.lastModified);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Store a downloaded response
+     * @param url url of the request
+     * @param token token used for the request
+     * @param body body of the response
+     * @param etag ETag header of the response, can be null
+     * @param lastModified Last-Modified header of the response, can be null
+     */
+    public void put(final String url, final String token, final String body,
+                    final String etag, final String lastModified) {
+        misses.incrementAndGet();
+        if(isEnabled()) {
+            final String name = getName(url, token);
+            try {
+                write(new File(directory, name + BODY_EXTENSION),
+                        body.getBytes(StandardCharsets.UTF_8));
+                writeMeta(name, etag, lastModified);
+            } catch (IOException e) {
+                // the response is just not cached
+                LOGGER.log(Level.WARNING, e.getMessage(), e);
+            }
+            if(size.get() > maxSize) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Getter for hits
+     * @return number of responses read from the cache without contacting the server
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Getter for revalidations
+     * @return number of responses read from the cache after the server confirmed them
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * Getter for misses
+     * @return number of responses downloaded
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(TO_STRING_PATTERN, hits.get(), revalidations.get(), misses.get(), size.get());
+    }
+
+    /**
+     * Write the metadata of a response, its validation date is now
+     * @param name name of the response's files
+     * @param etag ETag header of the response, can be null
+     * @param lastModified Last-Modified header of the response, can be null
+     * @throws IOException when writing the file
+     */
+    private void writeMeta(final String name, final String etag, final String lastModified)
+            throws IOException {
+        final Properties properties = new Properties();
+        if(etag != null) {
+            properties.setProperty(ETAG, etag);
+        }
+        if(lastModified != null) {
+            properties.setProperty(LAST_MODIFIED, lastModified);
+        }
+        properties.setProperty(VALIDATED_AT, String.valueOf(System.currentTimeMillis()));
+
+        final File temporary = File.createTempFile(name, TEMPORARY_EXTENSION, directory);
+        try(OutputStream output = new FileOutputStream(temporary)) {
+            properties.store(output, null);
+        }
+        move(temporary, new File(directory, name + META_EXTENSION));
+    }
+
+    /**
+     * Write a file through a temporary one so that readers never see a partial file
+     * @param file file to write
+     * @param content content of the file
+     * @throws IOException when writing the file
+     */
+    private void write(final File file, final byte[] content) throws IOException {
+        Files.createDirectories(directory.toPath());
+        final File temporary = File.createTempFile(file.getName(), TEMPORARY_EXTENSION, directory);
+        try(OutputStream output = new FileOutputStream(temporary)) {
+            output.write(content);
+        }
+        move(temporary, file);
+    }
+
+    /**
+     * Replace a file by another one and update the size of the cache
+     * @param source new file
+     * @param target file to replace
+     * @throws IOException when moving the file
+     */
+    private void move(final File source, final File target) throws IOException {
+        final long previous = target.length();
+        final long added = source.length();
+        Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        size.addAndGet(added - previous);
+    }
+
+    /**
+     * Mark a response as used now
+     * @param name name of the response's files
+     */
+    private void touch(final String name) {
+        final long now = System.currentTimeMillis();
+        if(!new File(directory, name + BODY_EXTENSION).setLastModified(now)) {
+            LOGGER.fine(String.format(TOUCH_ERROR_MESSAGE, name));
+        }
+    }
+
+    /**
+     * Delete the least recently used responses until the cache is small enough
+     */
+    private synchronized void evict() {
+        final File[] files = listFiles();
+        // bodies are touched when used: the oldest ones are deleted first
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        int index = 0;
+        while(size.get() > maxSize && index < files.length) {
+            final File body = files[index];
+            if(body.getName().endsWith(BODY_EXTENSION)) {
+                final String name = body.getName().substring(0,
+                        body.getName().length() - BODY_EXTENSION.length());
+                delete(body);
+                delete(new File(directory, name + META_EXTENSION));
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Delete a file of the cache and update its size
+     * @param file file to delete
+     */
+    private void delete(final File file) {
+        final long length = file.length();
+        if(file.delete()) {
+            size.addAndGet(-length);
+        }
+    }
+
+    /**
+     * List files of the cache
+     * @return an array, empty if the folder does not exist
+     */
+    private File[] listFiles() {
+        final File[] files = directory.listFiles();
+        return files == null ? new File[0] : files;
+    }
+
+    /**
+     * Give the name of the files caching a request, the token is not readable from it
+     * @param url url of the request
+     * @param token token used for the request
+     * @return a hash of the url and the token
+     */
+    private static String getName(final String url, final String token) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            final byte[] hash = digest.digest((url + StringManager.NEW_LINE + token)
+                    .getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder();
+            for(byte b : hash) {
+                name.append(String.format(HEXADECIMAL, b));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on all Java platforms
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Response read from the cache
+     */
+    public static final class Entry {
+        /**
+         * Name of the response's files
+         */
+        private final String name;
+        /**
+         * Body of the response
+         */
+        private final String body;
+        /**
+         * ETag header of the response, can be null
+         */
+        private final String etag;
+        /**
+         * Last-Modified header of the response, can be null
+         */
+        private final String lastModified;
+        /**
+         * Date (in milliseconds) when the response was last downloaded or confirmed
+         */
+        private final long validatedAt;
+
+        /**
+         * Complete constructor
+         * @param pName name of the response's files
+         * @param pBody body of the response
+         * @param pEtag ETag header of the response
+         * @param pLastModified Last-Modified header of the response
+         * @param pValidatedAt date when the response was last downloaded or confirmed
+         */
+        private Entry(final String pName, final String pBody, final String pEtag,
+                      final String pLastModified, final long pValidatedAt) {
+            this.name = pName;
+            this.body = pBody;
+            this.etag = pEtag;
+            this.lastModified = pLastModified;
+            this.validatedAt = pValidatedAt;
+        }
+
+        /**
+         * Getter for body
+         * @return body
+         */
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * Getter for etag
+         * @return etag, can be null
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Getter for lastModified
+         * @return lastModified, can be null
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+    }
+}
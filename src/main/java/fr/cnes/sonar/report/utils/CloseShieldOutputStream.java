@@ -0,0 +1,59 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.report.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream which does not close the underlying one, for writers closing
+ * the stream they are given, like POI documents written in a zip entry
+ * @author lequal
+ */
+public class CloseShieldOutputStream extends FilterOutputStream {
+
+    /**
+     * Complete constructor
+     * @param pOut stream to protect
+     */
+    public CloseShieldOutputStream(final OutputStream pOut) {
+        super(pOut);
+    }
+
+    /**
+     * Write bytes in the underlying stream at once
+     * @param b data
+     * @param off start offset in the data
+     * @param len number of bytes to write
+     * @throws IOException when writing
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    /**
+     * Flush the underlying stream but keep it open
+     * @throws IOException when flushing
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
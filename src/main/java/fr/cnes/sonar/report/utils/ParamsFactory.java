@@ -175,6 +175,18 @@ public class ParamsFactory {
         params.put(
                 StringManager.REPORT_CONF,
                 StringManager.getProperty(StringManager.REPORT_CONF));
+        params.put(
+                StringManager.REPORT_INCREMENTAL,
+                StringManager.getProperty(StringManager.REPORT_INCREMENTAL));
+        params.put(
+                StringManager.REPORT_CACHE,
+                StringManager.getProperty(StringManager.REPORT_CACHE));
+        params.put(
+                StringManager.REPORT_CACHE_DIRECTORY,
+                StringManager.getProperty(StringManager.REPORT_CACHE_DIRECTORY));
+        params.put(
+                StringManager.REPORT_BATCH_THREADS,
+                StringManager.getProperty(StringManager.REPORT_BATCH_THREADS));
         params.put(
                 StringManager.REPORT_PATH,
                 StringManager.getProperty(StringManager.REPORT_PATH));
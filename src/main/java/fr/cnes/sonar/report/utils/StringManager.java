@@ -86,6 +86,34 @@ public final class StringManager {
      * Name of the property giving the path to the xlsx template
      */
     public static final String ISSUES_TEMPLATE = "issues.template";
+    /**
+     * Parameter enabling incremental reports (yes or no)
+     */
+    public static final String REPORT_INCREMENTAL = "report.incremental";
+    /**
+     * Parameter enabling the persistent cache of responses (yes or no)
+     */
+    public static final String REPORT_CACHE = "report.cache";
+    /**
+     * Parameter giving the folder of cached responses
+     */
+    public static final String REPORT_CACHE_DIRECTORY = "report.cache.directory";
+    /**
+     * Value of a parameter which is enabled
+     */
+    public static final String YES = "yes";
+    /**
+     * Name of the property giving the number of threads used to request SonarQube
+     */
+    public static final String REPORT_THREADS = "report.threads";
+    /**
+     * Name of the property giving the number of projects reported at the same time in batch mode
+     */
+    public static final String REPORT_BATCH_THREADS = "report.batch.threads";
+    /**
+     * Name of the property giving the number of rows kept in memory when writing the xlsx file
+     */
+    public static final String XLSX_WINDOW = "report.xlsx.window";
     /**
      * Date pattern
      */
@@ -230,4 +258,21 @@ public final class StringManager {
     public static String string(final String key) {
         return messages.getString(key);
     }
+
+    /**
+     * Give a readable description of an error: its message, else the message
+     * of its cause, else the name of its class
+     * @param error the error to describe
+     * @return a description which is never null
+     */
+    public static String describe(final Throwable error) {
+        String description = error.getMessage();
+        if(description == null && error.getCause() != null) {
+            description = error.getCause().getMessage();
+        }
+        if(description == null) {
+            description = error.getClass().getName();
+        }
+        return description;
+    }
 }
@@ -63,22 +63,88 @@ window.registerExtension('cnesreport/report', function (options) {
     };
 
     /**
-     * Generate the report
+     * Display an error in the message area of the form, or hide it
+     * @param message text to display, empty to hide the area
+     */
+    var showMessage = function (message) {
+        if (message) {
+            $('#message').text(message).show();
+        } else {
+            $('#message').text('').hide();
+        }
+    };
+
+    /**
+     * Display the error of a failed web service request
+     * @param error error given by SonarRequest
+     */
+    var showRequestError = function (error) {
+        if (error && error.response && typeof error.response.json === 'function') {
+            // SonarQube web services describe their errors in a json body
+            error.response.json().then(function (body) {
+                showMessage(body.errors && body.errors.length > 0 ?
+                    body.errors[0].msg : error.response.statusText);
+            }).catch(function () {
+                showMessage(error.response.statusText);
+            });
+        } else {
+            showMessage(error && error.message ? error.message : String(error));
+        }
+    };
+
+    /**
+     * Delay in milliseconds between two checks of a report job
+     */
+    var POLLING_DELAY = 2000;
+
+    /**
+     * Check a report job until it ends, then download its files
+     * @param id identifier of the job
+     */
+    var waitForReport = function (id) {
+        window.SonarRequest.getJSON(
+            '/api/cnesreport/status',
+            { id: id }
+        ).then(function (job) {
+            if (!isDisplayedReporting) {
+                // the page has been closed
+                return;
+            }
+            if (job.status === 'DONE') {
+                // download the archive of the report
+                window.location = window.baseUrl + '/api/cnesreport/download?id=' + encodeURIComponent(id);
+                setEnabled(true);
+            } else if (job.status === 'FAILED') {
+                // display the error which stopped the generation
+                showMessage('Report generation failed: ' + job.message);
+                setEnabled(true);
+            } else {
+                // check again later
+                setTimeout(function () { waitForReport(id); }, POLLING_DELAY);
+            }
+        }).catch(function (error) {
+            // display why the job could not be checked
+            showRequestError(error);
+            setEnabled(true);
+        });
+    };
+
+    /**
+     * Generate the report in background then download it
      * @param key
      * @param author
      */
     var produceReport = function (key, author) {
-        // http GET request to the cnes web service
-        window.SonarRequest.getJSON(
-            '/api/cnesreport/report',
+        // http POST request to the cnes web service which answers immediately
+        window.SonarRequest.postJSON(
+            '/api/cnesreport/submit',
             { key: key, author: author }
-        ).then(function (response) {
-            // on success log generation
-            //TODO
-            setEnabled(true);
+        ).then(function (job) {
+            // on success wait for the end of the generation
+            waitForReport(job.id);
         }).catch(function (error) {
-            // log error
-            //TODO
+            // display why the job could not be submitted
+            showRequestError(error);
             setEnabled(true);
         });
     };
@@ -121,8 +187,9 @@ window.registerExtension('cnesreport/report', function (options) {
             // set its action on click
             document.querySelector('#generation').onclick = function () {
 
-                // hide loading
+                // hide loading and previous errors
                 $('#loading').hide();
+                showMessage('');
 
                 // validation of the form
                 if(checkForm()) {
@@ -0,0 +1,157 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.cnes.sonar.report.BatchReport;
+import fr.cnes.sonar.report.ReportCommandLine;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the reports of several projects against a stubbed SonarQube server
+ * @author lequal
+ */
+public class BatchReportTest {
+
+    /**
+     * Projects of the server
+     */
+    private static final String PROJECTS = "{\"paging\":{\"pageIndex\":1,\"pageSize\":500,\"total\":4},"
+            + "\"components\":[{\"key\":\"app-core\"},{\"key\":\"app.web\"},"
+            + "{\"key\":\"apple\"},{\"key\":\"lib-core\"}]}";
+    /**
+     * Error sent for any other request, its message contains csv separators
+     */
+    private static final String ERROR = "{\"errors\":[{\"msg\":\"unknown;project\\nkey\"}]}";
+
+    /**
+     * Stubbed server
+     */
+    private HttpServer server;
+    /**
+     * Url of the stubbed server
+     */
+    private String url;
+    /**
+     * Folder of the reports
+     */
+    private File folder;
+
+    /**
+     * Executed each time before running a single test
+     * @throws IOException when starting the server
+     */
+    @Before
+    public void prepare() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            if(exchange.getRequestURI().getPath().endsWith("/components/search")) {
+                answer(exchange, 200, PROJECTS);
+            } else {
+                answer(exchange, 404, ERROR);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+        folder = Files.createTempDirectory("cnesreport-batch").toFile();
+    }
+
+    /**
+     * Executed each time after running a single test
+     * @throws IOException when deleting the folder
+     */
+    @After
+    public void clean() throws IOException {
+        server.stop(0);
+        FileUtils.deleteDirectory(folder);
+    }
+
+    /**
+     * Assert that patterns are matched literally except for wildcards,
+     * and that projects are given once in the given order
+     * @throws Exception ...
+     */
+    @Test
+    public void findProjectsTest() throws Exception {
+        final List<String> keys = ReportCommandLine.findProjects(url, "token",
+                "app.*, app-*, lib-core, app.*, missing*");
+
+        assertEquals(Arrays.asList("app.web", "app-core", "lib-core"), keys);
+    }
+
+    /**
+     * Assert that a failing project gets a readable line in the summary
+     * without breaking the csv format
+     * @throws Exception ...
+     */
+    @Test
+    public void summaryTest() throws Exception {
+        final List<BatchReport.ProjectResult> results = new BatchReport(url, "token", "me",
+                "2026-01-01", folder.getPath(), "unused.docx", "unused.xlsx", false)
+                .run(Arrays.asList("first", "second"), 2);
+
+        assertEquals(2, results.size());
+        assertEquals("first", results.get(0).getProject());
+        assertFalse(results.get(0).isSuccessful());
+        assertTrue(results.get(0).getError().contains("unknown;project"));
+
+        final List<String> lines = Files.readAllLines(
+                new File(folder, "batch-summary.csv").toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("project;status;duration (ms);message", lines.get(0));
+        for(int i = 1; i < lines.size(); i++) {
+            final String[] fields = lines.get(i).split(";");
+            assertEquals(4, fields.length);
+            assertEquals(results.get(i - 1).getProject(), fields[0]);
+            assertEquals("KO", fields[1]);
+        }
+    }
+
+    /**
+     * Send a response to a stubbed request
+     * @param exchange request to answer
+     * @param code http status
+     * @param body content of the response
+     * @throws IOException when writing the response
+     */
+    private static void answer(final HttpExchange exchange, final int code, final String body)
+            throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
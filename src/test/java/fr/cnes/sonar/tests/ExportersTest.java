@@ -19,8 +19,47 @@ import fr.cnes.sonar.report.exceptions.BadExportationDataTypeException;
 import fr.cnes.sonar.report.exporters.JsonExporter;
 import fr.cnes.sonar.report.exporters.XmlExporter;
 import fr.cnes.sonar.report.exporters.docx.DocXExporter;
+import fr.cnes.sonar.report.exporters.docx.DocXTools;
+import fr.cnes.sonar.report.exporters.docx.XWPFChartSpace;
+import fr.cnes.sonar.report.exporters.xlsx.ColumnSchema;
 import fr.cnes.sonar.report.exporters.xlsx.XlsXExporter;
+import fr.cnes.sonar.report.model.ProfileData;
+import fr.cnes.sonar.report.model.ProfileMetaData;
+import fr.cnes.sonar.report.model.QualityGate;
+import fr.cnes.sonar.report.model.QualityProfile;
+import fr.cnes.sonar.report.model.Value;
+import fr.cnes.sonar.report.plugin.tasks.ReportTask;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.junit.Test;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTPieSer;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test the creation of files from an abstract report
@@ -45,6 +84,256 @@ public class ExportersTest extends CommonTest {
         de.export(report, TARGET+"/test.docx", params.get("report.template"));
     }
 
+    /**
+     * Assert that a template compiled once renders several reports
+     * with the same content
+     * @throws Exception ...
+     */
+    @Test
+    public void docxTemplateReuseTest() throws Exception {
+        final DocXExporter de = new DocXExporter();
+        final String template = params.get("report.template");
+
+        final File first = de.export(report, TARGET+"/first.docx", template);
+        final File second = de.export(report, TARGET+"/second.docx", template);
+        try (
+            FileInputStream firstStream = new FileInputStream(first);
+            FileInputStream secondStream = new FileInputStream(second);
+            XWPFDocument firstDocument = new XWPFDocument(firstStream);
+            XWPFDocument secondDocument = new XWPFDocument(secondStream)
+        ) {
+            assertEquals(new XWPFWordExtractor(firstDocument).getText(),
+                    new XWPFWordExtractor(secondDocument).getText());
+        }
+    }
+
+    /**
+     * Assert that rows added by the public helper are listed by the table
+     * and keep their content, including spaces, once saved
+     * @throws Exception ...
+     */
+    @Test
+    public void fillTableTest() throws Exception {
+        // the placeholder table is read from a file as in a template
+        final File file = new File(TARGET, "table.docx");
+        try (XWPFDocument document = new XWPFDocument();
+             FileOutputStream output = new FileOutputStream(file)) {
+            document.createTable().getRow(0).getCell(0).setText("XX-TABLE-XX");
+            document.write(output);
+        }
+
+        try (FileInputStream stream = new FileInputStream(file);
+             XWPFDocument document = new XWPFDocument(stream)) {
+            DocXTools.fillTable(document, Arrays.asList("A", "B"),
+                    Arrays.asList(Arrays.asList(" x ", "y"), Arrays.asList("z"),
+                            Arrays.asList("1", "2", "3")), "XX-TABLE-XX");
+
+            final XWPFTable table = document.getTables().get(0);
+            assertEquals(4, table.getRows().size());
+            assertEquals(" x ", table.getRow(1).getCell(0).getText());
+            assertEquals("", table.getRow(2).getCell(1).getText());
+            assertEquals("3", table.getRow(3).getCell(2).getText());
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                document.write(output);
+            }
+        }
+
+        try (FileInputStream stream = new FileInputStream(file);
+             XWPFDocument document = new XWPFDocument(stream)) {
+            final XWPFTable table = document.getTables().get(0);
+            assertEquals(4, table.getRows().size());
+            assertEquals("A", table.getRow(0).getCell(0).getText());
+            assertEquals(" x ", table.getRow(1).getCell(0).getText());
+            assertEquals("y", table.getRow(1).getCell(1).getText());
+        }
+    }
+
+    /**
+     * Assert that a placeholder beginning like another one is replaced
+     * by its own value and not by the value of the shortest one
+     * @throws Exception ...
+     */
+    @Test
+    public void placeholderLongestMatchTest() throws Exception {
+        final Map<String,String> values = new LinkedHashMap<>();
+        values.put("XX-A-XX", "short");
+        values.put("XX-A-XX-B", "long");
+
+        try (XWPFDocument document = new XWPFDocument()) {
+            document.createParagraph().createRun().setText("XX-A-XX-B and XX-A-XX");
+            document.createParagraph().createRun().setText("XX-A-X is not replaced");
+
+            assertEquals(2, DocXTools.replacePlaceholder(document, values));
+            assertEquals("long and short", document.getParagraphs().get(0).getText());
+            assertEquals("XX-A-X is not replaced", document.getParagraphs().get(1).getText());
+        }
+    }
+
+    /**
+     * Assert that a picture placeholder inserts the whole picture of the
+     * resources each time it is used
+     * @throws Exception ...
+     */
+    @Test
+    public void placeholderPictureTest() throws Exception {
+        final byte[] expected = Files.readAllBytes(new File("src/main/resources/img/OK.png").toPath());
+        final File file = new File(TARGET, "picture.docx");
+
+        try (XWPFDocument document = new XWPFDocument();
+             FileOutputStream output = new FileOutputStream(file)) {
+            document.createParagraph().createRun().setText("XX-STATUS-XX");
+            document.createParagraph().createRun().setText("XX-STATUS-XX");
+            assertEquals(2, DocXTools.replacePlaceholder(document,
+                    Collections.singletonMap("XX-STATUS-XX", "OK.png")));
+            document.write(output);
+        }
+
+        try (FileInputStream stream = new FileInputStream(file);
+             XWPFDocument document = new XWPFDocument(stream)) {
+            final List<XWPFPictureData> pictures = document.getAllPackagePictures();
+            assertTrue(!pictures.isEmpty());
+            for(XWPFPictureData picture : pictures) {
+                assertArrayEquals(expected, picture.getData());
+            }
+            for(XWPFParagraph paragraph : document.getParagraphs()) {
+                assertEquals(1, paragraph.getRuns().get(0).getEmbeddedPictures().size());
+            }
+        }
+    }
+
+    /**
+     * Assert that the number of points of a chart follows its new values
+     * and that a chart is written only when it has been modified
+     * @throws Exception ...
+     */
+    @Test
+    public void chartValuesTest() throws Exception {
+        final List<Value> values = Arrays.asList(new Value("BUG", 4), new Value("CODE_SMELL", 2));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (FileInputStream stream = new FileInputStream(params.get("report.template"));
+             XWPFDocument document = new XWPFDocument(stream)) {
+            final List<XWPFChartSpace> charts = XWPFChartSpace.getChartSpaces(document);
+            assertEquals(2, charts.size());
+            for(XWPFChartSpace chart : charts) {
+                assertFalse(chart.isDirty());
+                chart.setValues(values);
+                assertTrue(chart.isDirty());
+                chart.save();
+                assertFalse(chart.isDirty());
+            }
+            document.write(output);
+        }
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(output.toByteArray()))) {
+            for(XWPFChartSpace chart : XWPFChartSpace.getChartSpaces(document)) {
+                final CTPieSer series = chart.getChartSpace().getChartSpace().getChart()
+                        .getPlotArea().getPieChartList().get(0).getSerList().get(0);
+                final CTStrData categories = series.getCat().getStrRef().getStrCache();
+                final CTNumData numbers = series.getVal().getNumRef().getNumCache();
+                assertEquals(2, categories.getPtList().size());
+                assertEquals(2, categories.getPtCount().getVal());
+                assertEquals(2, numbers.getPtList().size());
+                assertEquals(2, numbers.getPtCount().getVal());
+                assertEquals("CODE_SMELL", categories.getPtList().get(1).getV());
+                assertEquals("4", numbers.getPtList().get(0).getV());
+            }
+        }
+    }
+
+    /**
+     * Assert that the table counting issues by type and severity has a row
+     * per couple, each one with as many cells as the header
+     * @throws Exception ...
+     */
+    @Test
+    public void docxCountRowsTest() throws Exception {
+        final File file = new DocXExporter().export(report, TARGET+"/rows.docx",
+                params.get("report.template"));
+
+        try (FileInputStream stream = new FileInputStream(file);
+             XWPFDocument document = new XWPFDocument(stream)) {
+            XWPFTable count = null;
+            for(XWPFTable table : document.getTables()) {
+                if(table.getText().contains("VULNERABILITY")) {
+                    count = table;
+                }
+            }
+            assertTrue(count != null);
+            final List<XWPFTableRow> rows = count.getRows();
+            // header, then 3 types by 5 severities
+            assertEquals(16, rows.size());
+            for(XWPFTableRow row : rows) {
+                assertEquals(3, row.getTableCells().size());
+            }
+            assertTrue(count.getText().contains("BUG\tMAJOR\t1"));
+        }
+    }
+
+    /**
+     * Assert that a template replaced by another file is compiled again,
+     * even if the new file has the same date of last modification
+     * @throws Exception ...
+     */
+    @Test
+    public void docxTemplateChangeTest() throws Exception {
+        final DocXExporter de = new DocXExporter();
+        final File template = new File(TARGET, "changing-template.docx");
+        Files.copy(new File(params.get("report.template")).toPath(), template.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        final long modified = template.lastModified();
+        de.export(report, TARGET+"/before.docx", template.getPath());
+
+        // replace the template by a smaller one, keeping its date
+        try (XWPFDocument document = new XWPFDocument();
+             FileOutputStream output = new FileOutputStream(template)) {
+            final XWPFParagraph paragraph = document.createParagraph();
+            paragraph.createRun().setText("Changed XX-PROJECTNAME-XX");
+            document.write(output);
+        }
+        assertTrue(template.setLastModified(modified));
+
+        final File after = de.export(report, TARGET+"/after.docx", template.getPath());
+        try (FileInputStream stream = new FileInputStream(after);
+             XWPFDocument document = new XWPFDocument(stream)) {
+            assertEquals("Changed GENIUS", document.getParagraphs().get(0).getText());
+        }
+    }
+
+    /**
+     * Assert that the plugin's archive contains all files of the report and
+     * that names coming from SonarQube can not leave the conf folder
+     * @throws Exception ...
+     */
+    @Test
+    public void archiveEntriesTest() throws Exception {
+        final ProfileData data = new ProfileData();
+        data.setConf("<profile/>");
+        final ProfileMetaData metaData = new ProfileMetaData();
+        metaData.setKey("../../etc/java:profile");
+        metaData.setName("Java profile");
+        report.setQualityProfiles(Collections.singletonList(new QualityProfile(data, metaData)));
+        final QualityGate gate = new QualityGate();
+        gate.setName("..\\My gate/2");
+        gate.setConf("{}");
+        report.setQualityGate(gate);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ReportTask.writeArchive(report, output, params.get("report.template"),
+                params.get("issues.template"));
+
+        final List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry = zip.getNextEntry();
+            while(entry != null) {
+                names.add(entry.getName());
+                entry = zip.getNextEntry();
+            }
+        }
+        assertEquals(Arrays.asList("analysis-report.docx", "issues-report.xlsx",
+                "conf/.._.._etc_java_profile.xml", "conf/.._My_gate_2.json"), names);
+    }
+
     /**
      * Assert that there are no exception in a normal use
      * of XlsxExporter
@@ -129,4 +418,25 @@ public class ExportersTest extends CommonTest {
         xe.export(4, TARGET, "test.json");
     }
 
+    /**
+     * Assert that columns of raw issues are ordered as met
+     * and that rows follow the columns
+     */
+    @Test
+    public void columnSchemaTest() {
+        final Map<String, String> first = new LinkedHashMap<>();
+        first.put("key", "k1");
+        first.put("rule", "r1");
+        final Map<String, String> second = new LinkedHashMap<>();
+        second.put("line", "3");
+        second.put("key", "k2");
+        final List<Map> maps = Arrays.asList(first, second);
+
+        final ColumnSchema schema = new ColumnSchema(maps);
+        assertEquals(Arrays.asList("key", "rule", "line"), schema.getHeaders());
+        assertEquals(2, schema.indexOf("line"));
+        assertEquals(-1, schema.indexOf("unknown"));
+        assertEquals(Arrays.asList("k2", null, "3"), schema.toRow(second));
+    }
+
 }
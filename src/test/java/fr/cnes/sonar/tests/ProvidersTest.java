@@ -0,0 +1,169 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.cnes.sonar.report.model.QualityProfile;
+import fr.cnes.sonar.report.providers.QualityProfileProvider;
+import fr.cnes.sonar.report.providers.RequestManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test data providers against a stubbed SonarQube server
+ * @author lequal
+ */
+public class ProvidersTest {
+
+    /**
+     * Profiles of the first project: a broken one, then a shared one
+     */
+    private static final String FIRST_PROFILES = "{\"profiles\":["
+            + "{\"key\":\"broken\",\"name\":\"Broken\",\"language\":\"java\",\"rulesUpdatedAt\":\"1\"},"
+            + "{\"key\":\"shared\",\"name\":\"Shared\",\"language\":\"java\",\"rulesUpdatedAt\":\"1\"}]}";
+    /**
+     * Profiles of the second project: only the shared one
+     */
+    private static final String SECOND_PROFILES = "{\"profiles\":["
+            + "{\"key\":\"shared\",\"name\":\"Shared\",\"language\":\"java\",\"rulesUpdatedAt\":\"1\"}]}";
+    /**
+     * Page of rules of the shared profile, which has two pages of rules
+     */
+    private static final String SHARED_RULES = "{\"total\":600,\"rules\":[]}";
+    /**
+     * Maximum time (in seconds) to wait for a step of the scenario
+     */
+    private static final long TIMEOUT = 30;
+
+    /**
+     * Executed each time before running a single test: responses and
+     * profiles of other tests or of previous runs are not reused
+     */
+    @Before
+    public void prepare() {
+        RequestManager.getInstance().configureCache(false, System.getProperty("java.io.tmpdir"));
+        QualityProfileProvider.clearProfiles();
+    }
+
+    /**
+     * Assert that a profile failing in a report does not stop the loading
+     * of another profile which is shared with a second report
+     * @throws Exception ...
+     */
+    @Test
+    public void failingProfileDoesNotStopSharedProfileTest() throws Exception {
+        final CountDownLatch sharedStarted = new CountDownLatch(1);
+        final CountDownLatch secondSearched = new CountDownLatch(1);
+        final CountDownLatch brokenFailed = new CountDownLatch(1);
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            final String query = exchange.getRequestURI().getQuery();
+            final String path = exchange.getRequestURI().getPath();
+            try {
+                if(path.endsWith("/qualityprofiles/search")) {
+                    if(query.contains("projectKey=second")) {
+                        secondSearched.countDown();
+                        answer(exchange, 200, SECOND_PROFILES);
+                    } else {
+                        answer(exchange, 200, FIRST_PROFILES);
+                    }
+                } else if(path.endsWith("/rules/search") && query.contains("qprofile=broken")) {
+                    answer(exchange, 500, "{}");
+                    brokenFailed.countDown();
+                } else if(path.endsWith("/rules/search") && query.contains("&p=1")) {
+                    // the first report fails and the second one joins the loading
+                    // before the pages of the shared profile are requested
+                    sharedStarted.countDown();
+                    secondSearched.await(TIMEOUT, TimeUnit.SECONDS);
+                    brokenFailed.await(TIMEOUT, TimeUnit.SECONDS);
+                    Thread.sleep(500);
+                    answer(exchange, 200, SHARED_RULES);
+                } else if(path.endsWith("/rules/search")) {
+                    answer(exchange, 200, SHARED_RULES);
+                } else if(path.endsWith("/qualityprofiles/projects")) {
+                    answer(exchange, 200, "{\"results\":[]}");
+                } else {
+                    answer(exchange, 200, "<profile/>");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                answer(exchange, 500, "{}");
+            }
+        });
+        server.start();
+
+        final String url = "http://localhost:" + server.getAddress().getPort();
+        final ExecutorService reports = Executors.newFixedThreadPool(2);
+        try {
+            final Future<List<QualityProfile>> first = reports.submit(
+                    () -> new QualityProfileProvider(url, "token", "first").getQualityProfiles());
+            // the first report owns the loading of the shared profile
+            assertTrue(sharedStarted.await(TIMEOUT, TimeUnit.SECONDS));
+            final Future<List<QualityProfile>> second = reports.submit(
+                    () -> new QualityProfileProvider(url, "token", "second").getQualityProfiles());
+
+            try {
+                first.get(TIMEOUT, TimeUnit.SECONDS);
+                fail("The broken profile should fail the first report");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            final List<QualityProfile> profiles = second.get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(1, profiles.size());
+            assertEquals("shared", profiles.get(0).getKey());
+        } finally {
+            reports.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Send a response to a stubbed request
+     * @param exchange request to answer
+     * @param code http status
+     * @param body content of the response
+     * @throws IOException when writing the response
+     */
+    private static void answer(final HttpExchange exchange, final int code, final String body)
+            throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.tests;
+
+import fr.cnes.sonar.report.plugin.tasks.ReportJob;
+import fr.cnes.sonar.report.plugin.tasks.ReportJobManager;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Check the queue of report jobs of the plugin, without SonarQube
+ * running: all jobs fail but they are queued, kept and purged
+ * @author lequal
+ */
+public class ReportJobsTest {
+
+    /**
+     * Maximum time (in milliseconds) to wait for the end of a job
+     */
+    private static final long TIMEOUT = 30000;
+    /**
+     * Time (in milliseconds) after which the purge ran at least once
+     */
+    private static final long PURGE_WAIT = 1500;
+
+    /**
+     * Folder of the jobs
+     */
+    private File workspace;
+    /**
+     * Tested manager, purging every second jobs finished since more than 0 seconds
+     */
+    private ReportJobManager manager;
+
+    /**
+     * Executed each time before running a single test
+     * @throws IOException when creating the folder
+     */
+    @Before
+    public void prepare() throws IOException {
+        workspace = Files.createTempDirectory("cnesreport-jobs").toFile();
+        manager = new ReportJobManager(1, 2, 0, 1, workspace);
+    }
+
+    /**
+     * Executed each time after running a single test
+     * @throws IOException when deleting the folder
+     */
+    @After
+    public void clean() throws IOException {
+        manager.stop();
+        FileUtils.deleteDirectory(workspace);
+    }
+
+    /**
+     * Assert that folders of a previous execution are deleted at start
+     * @throws IOException when creating the folder
+     */
+    @Test
+    public void startCleansWorkspaceTest() throws IOException {
+        final File stale = new File(workspace, "previous/conf");
+        assertTrue(stale.mkdirs());
+        Files.write(new File(stale, "gate.json").toPath(), new byte[1]);
+
+        manager.start();
+
+        assertEquals(0, workspace.list().length);
+    }
+
+    /**
+     * Assert that queued jobs are executed and that a failure gives a message
+     * @throws Exception ...
+     */
+    @Test
+    public void failedJobTest() throws Exception {
+        manager.start();
+        final ReportJob first = manager.submit("first", "me");
+        final ReportJob second = manager.submit("second", "me");
+
+        waitForEnd(first);
+        waitForEnd(second);
+        assertEquals(ReportJob.Status.FAILED, first.getStatus());
+        assertEquals(ReportJob.Status.FAILED, second.getStatus());
+        assertNotNull(first.getMessage());
+        assertNotEquals("null", first.getMessage());
+    }
+
+    /**
+     * Assert that a finished job is purged after the retention, but not
+     * while its archive is downloaded
+     * @throws Exception ...
+     */
+    @Test
+    public void retentionTest() throws Exception {
+        manager.start();
+        final ReportJob job = manager.submit("project", "me");
+        final File folder = new File(workspace, job.getId());
+        waitForEnd(job);
+
+        // a download in progress keeps the job
+        assertTrue(job.acquire());
+        Thread.sleep(PURGE_WAIT);
+        assertTrue(folder.isDirectory());
+
+        // the next purge deletes it once released
+        job.release();
+        Thread.sleep(PURGE_WAIT);
+        assertFalse(folder.exists());
+        assertNull(manager.get(job.getId()));
+        assertFalse(job.acquire());
+    }
+
+    /**
+     * Assert that a rejected job leaves nothing behind
+     * @throws IOException when creating the job's folder
+     */
+    @Test
+    public void rejectedJobTest() throws IOException {
+        manager.start();
+        manager.stop();
+        try {
+            manager.submit("project", "me");
+            fail("A stopped manager must reject jobs");
+        } catch (RejectedExecutionException e) {
+            assertEquals(0, workspace.list().length);
+        }
+    }
+
+    /**
+     * Wait for a job to finish
+     * @param job the job to wait for
+     * @throws InterruptedException when interrupted
+     */
+    private static void waitForEnd(final ReportJob job) throws InterruptedException {
+        final long limit = System.currentTimeMillis() + TIMEOUT;
+        while(job.getFinishedAt() == 0 && System.currentTimeMillis() < limit) {
+            Thread.sleep(50);
+        }
+        assertTrue(job.getFinishedAt() > 0);
+    }
+}
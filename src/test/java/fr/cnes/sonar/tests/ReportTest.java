@@ -15,11 +15,23 @@ package fr.cnes.sonar.tests;/*
  * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import fr.cnes.sonar.report.model.Issue;
+import fr.cnes.sonar.report.model.IssuesStatistics;
+import fr.cnes.sonar.report.model.ProfileData;
+import fr.cnes.sonar.report.model.ProfileMetaData;
+import fr.cnes.sonar.report.model.QualityProfile;
 import fr.cnes.sonar.report.model.Report;
+import fr.cnes.sonar.report.model.Rule;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Check Report class
@@ -61,4 +73,101 @@ public class ReportTest {
         assert(report.getMeasures().isEmpty());
     }
 
+    /**
+     * Check that getters do not copy lists and that lists cannot be modified
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void unmodifiableListsTest() {
+        final List<Issue> issues = new ArrayList<>();
+        issues.add(new Issue());
+        report.setIssues(issues);
+        // report is not affected by changes on the given list
+        issues.clear();
+        assertEquals(1, report.getIssues().size());
+        // same view is returned on each call
+        assertSame(report.getIssues(), report.getIssues());
+        assertSame(report.getRawIssues(), report.getRawIssues());
+        assertSame(report.getUnconfirmed(), report.getUnconfirmed());
+        assertSame(report.getMeasures(), report.getMeasures());
+        assertSame(report.getFacets(), report.getFacets());
+        assertSame(report.getQualityProfiles(), report.getQualityProfiles());
+        // view cannot be modified
+        report.getIssues().add(new Issue());
+    }
+
+    /**
+     * Check counts of issues
+     */
+    @Test
+    public void issuesStatisticsTest() {
+        final List<Issue> issues = new ArrayList<>();
+        issues.add(createIssue("BUG", "MAJOR", "p:src/a/A.java"));
+        issues.add(createIssue("BUG", "MAJOR", "p:src/a/B.java"));
+        issues.add(createIssue("CODE_SMELL", "INFO", "p:pom.xml"));
+        report.setIssues(issues);
+
+        final IssuesStatistics statistics = report.getIssuesStatistics();
+        assertEquals(2, statistics.count("BUG", "MAJOR"));
+        assertEquals(1, statistics.count("CODE_SMELL", "INFO"));
+        assertEquals(0, statistics.count("VULNERABILITY", "BLOCKER"));
+        assertEquals(Long.valueOf(2), statistics.getDirectories().get("p:src/a"));
+        assertEquals(Long.valueOf(1), statistics.getDirectories().get("p"));
+        assertEquals(Long.valueOf(3), report.getIssuesFacets().get(TEST_STRING));
+
+        // statistics follow issues' changes
+        report.setIssues(issues.subList(0, 1));
+        assertEquals(1, report.getIssuesStatistics().count("BUG", "MAJOR"));
+    }
+
+    /**
+     * Create an issue for the test rule
+     * @param type type of the issue
+     * @param severity severity of the issue
+     * @param component component of the issue
+     * @return a new issue
+     */
+    private Issue createIssue(final String type, final String severity, final String component) {
+        final Issue issue = new Issue();
+        issue.setType(type);
+        issue.setSeverity(severity);
+        issue.setComponent(component);
+        issue.setRule(TEST_STRING);
+        return issue;
+    }
+
+    /**
+     * Check that rules are found in quality profiles
+     * and that the index follows profiles' changes
+     */
+    @Test
+    public void getRuleTest() {
+        assertNull(report.getRule(TEST_STRING));
+
+        report.setQualityProfiles(Collections.singletonList(createProfile("p1", "squid:S1258")));
+        assertEquals("p1", report.getRule("squid:S1258").getName());
+        assertNull(report.getRule(TEST_STRING));
+
+        report.setQualityProfiles(Collections.singletonList(createProfile("p2", TEST_STRING)));
+        assertNull(report.getRule("squid:S1258"));
+        assertEquals("p2", report.getRule(TEST_STRING).getName());
+    }
+
+    /**
+     * Create a quality profile containing a single rule
+     * @param name name of the profile and of its rule
+     * @param ruleKey key of the rule
+     * @return a new quality profile
+     */
+    private QualityProfile createProfile(final String name, final String ruleKey) {
+        final Rule rule = new Rule();
+        rule.setKey(ruleKey);
+        rule.setName(name);
+        final ProfileData profileData = new ProfileData();
+        profileData.setRules(Collections.singletonList(rule));
+        final ProfileMetaData profileMetaData = new ProfileMetaData();
+        profileMetaData.setName(name);
+        profileMetaData.setKey(name);
+        return new QualityProfile(profileData, profileMetaData);
+    }
+
 }
@@ -0,0 +1,144 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.tests;
+
+import fr.cnes.sonar.report.providers.ResponseCache;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the persistent cache of responses
+ * @author lequal
+ */
+public class ResponseCacheTest {
+
+    /**
+     * Token used for all requests
+     */
+    private static final String TOKEN = "token";
+    /**
+     * Size (in characters) of the cached bodies
+     */
+    private static final int BODY_SIZE = 1000;
+    /**
+     * Time (in milliseconds) between two operations to order their dates
+     */
+    private static final long PAUSE = 50;
+
+    /**
+     * Folder of the tested cache
+     */
+    private File directory;
+
+    /**
+     * Executed each time before running a single test
+     * @throws IOException when creating the folder
+     */
+    @Before
+    public void prepare() throws IOException {
+        directory = Files.createTempDirectory("cnesreport-cache").toFile();
+    }
+
+    /**
+     * Executed each time after running a single test
+     * @throws IOException when deleting the folder
+     */
+    @After
+    public void clean() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    /**
+     * Assert that a response is fresh during the ttl only
+     * @throws InterruptedException when interrupted
+     */
+    @Test
+    public void ttlTest() throws InterruptedException {
+        final ResponseCache cache = new ResponseCache(directory, 1, Long.MAX_VALUE);
+        cache.put("a", TOKEN, "body", "etag", null);
+
+        final ResponseCache.Entry entry = cache.get("a", TOKEN);
+        assertNotNull(entry);
+        assertEquals("body", entry.getBody());
+        assertEquals("etag", entry.getEtag());
+        assertTrue(cache.isFresh(entry));
+        // responses are cached per token
+        assertNull(cache.get("a", "other"));
+
+        Thread.sleep(1100);
+        final ResponseCache.Entry stale = cache.get("a", TOKEN);
+        assertNotNull(stale);
+        assertFalse(cache.isFresh(stale));
+    }
+
+    /**
+     * Assert that a cache without ttl never stores anything
+     */
+    @Test
+    public void disabledCacheTest() {
+        final ResponseCache cache = new ResponseCache(directory, 0, Long.MAX_VALUE);
+        cache.put("a", TOKEN, "body", null, null);
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("a", TOKEN));
+        assertEquals(0, directory.list().length);
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Assert that the least recently used response is deleted first
+     * when the cache is full
+     * @throws InterruptedException when interrupted
+     */
+    @Test
+    public void lruEvictionTest() throws InterruptedException {
+        final char[] content = new char[BODY_SIZE];
+        Arrays.fill(content, 'x');
+        final String body = new String(content);
+        // room for two responses and their metadata, not three
+        final ResponseCache cache = new ResponseCache(directory, 3600, 2 * BODY_SIZE + 500);
+
+        cache.put("a", TOKEN, body, null, null);
+        Thread.sleep(PAUSE);
+        cache.put("b", TOKEN, body, null, null);
+        Thread.sleep(PAUSE);
+        // a is used again so b becomes the least recently used
+        cache.hit(cache.get("a", TOKEN));
+        Thread.sleep(PAUSE);
+        cache.put("c", TOKEN, body, null, null);
+
+        assertNotNull(cache.get("a", TOKEN));
+        assertNull(cache.get("b", TOKEN));
+        assertNotNull(cache.get("c", TOKEN));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of cnesreport.
+ *
+ * cnesreport is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cnesreport is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cnesreport.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.cnes.sonar.tests;
+
+import com.sun.net.httpserver.HttpServer;
+import fr.cnes.sonar.report.factory.ReportSnapshot;
+import fr.cnes.sonar.report.model.Issue;
+import fr.cnes.sonar.report.model.Report;
+import fr.cnes.sonar.report.providers.IssuesProvider;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Check incremental reports: snapshot of a report and merge of updated issues
+ * @author lequal
+ */
+public class SnapshotTest extends CommonTest {
+
+    /**
+     * Issues updated since the previous report, the most recent first:
+     * b is resolved, c is new, a is updated at the last known date and z is older
+     */
+    private static final String UPDATED_ISSUES = "{\"total\":4,\"issues\":["
+            + "{\"key\":\"b\",\"resolution\":\"FIXED\",\"updateDate\":\"2026-01-03T00:00:00+0000\"},"
+            + "{\"key\":\"c\",\"updateDate\":\"2026-01-02T00:00:00+0000\"},"
+            + "{\"key\":\"a\",\"message\":\"new\",\"updateDate\":\"2026-01-01T00:00:00+0000\"},"
+            + "{\"key\":\"z\",\"updateDate\":\"2025-01-01T00:00:00+0000\"}]}";
+
+    /**
+     * Assert that a snapshot only keeps issues and gives a report built
+     * through its setters
+     * @throws Exception ...
+     */
+    @Test
+    public void snapshotRoundTripTest() throws Exception {
+        final File file = ReportSnapshot.getFile("./target", "group:project");
+        ReportSnapshot.save(report, file);
+
+        final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertFalse(content.contains("coucou"));
+        assertFalse(content.contains("GENIUS"));
+
+        final Report loaded = ReportSnapshot.load(file);
+        assertEquals(2, loaded.getIssues().size());
+        assertEquals("z", loaded.getIssues().get(0).getKey());
+        assertEquals("SECURITY", loaded.getIssues().get(1).getType());
+        assertEquals(0, loaded.getQualityProfiles().size());
+        assertEquals(Collections.emptyList(), loaded.getUnconfirmed());
+        try {
+            loaded.getIssues().clear();
+            fail("Issues of a loaded snapshot must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // lists are protected as for any report
+        }
+    }
+
+    /**
+     * Assert that a missing or corrupted snapshot gives a full report
+     * @throws Exception ...
+     */
+    @Test
+    public void unreadableSnapshotTest() throws Exception {
+        final File file = ReportSnapshot.getFile("./target", "corrupted");
+        assertNull(ReportSnapshot.load(new File("./target/snapshot/missing.json")));
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), "{\"issues\":".getBytes(StandardCharsets.UTF_8));
+        assertNull(ReportSnapshot.load(file));
+        Files.write(file.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        assertNull(ReportSnapshot.load(file));
+    }
+
+    /**
+     * Assert that issues updated since the snapshot replace previous ones
+     * @throws Exception ...
+     */
+    @Test
+    public void incrementalMergeTest() throws Exception {
+        final Report previous = new Report();
+        previous.setIssues(Arrays.asList(issue("a", "2026-01-01T00:00:00+0000"),
+                issue("b", "2025-12-31T00:00:00+0000")));
+        previous.setUnconfirmed(Collections.emptyList());
+        previous.setRawIssues(Arrays.<Map>asList(raw("a"), raw("b")));
+        final File file = ReportSnapshot.getFile("./target", "merged");
+        ReportSnapshot.save(previous, file);
+        final Report loaded = ReportSnapshot.load(file);
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            final byte[] bytes = UPDATED_ISSUES.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        });
+        server.start();
+        try {
+            final IssuesProvider provider = new IssuesProvider(
+                    "http://localhost:" + server.getAddress().getPort(), "token", "project");
+            provider.setPreviousIssues(loaded.getIssues(), loaded.getUnconfirmed(),
+                    loaded.getRawIssues());
+
+            assertEquals(Arrays.asList("c", "a"), keys(provider.getIssues()));
+            assertEquals("new", provider.getIssues().get(1).getMessage());
+            assertEquals(Collections.singletonList("b"), keys(provider.getUnconfirmedIssues()));
+            final List<String> rawKeys = new ArrayList<>();
+            for(Map map : provider.getRawIssues()) {
+                rawKeys.add(String.valueOf(map.get("key")));
+            }
+            assertEquals(Arrays.asList("c", "a"), rawKeys);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Create an issue
+     * @param key key of the issue
+     * @param updateDate date of the last update
+     * @return the issue
+     */
+    private static Issue issue(final String key, final String updateDate) {
+        final Issue issue = new Issue();
+        issue.setKey(key);
+        issue.setUpdateDate(updateDate);
+        return issue;
+    }
+
+    /**
+     * Create a raw issue
+     * @param key key of the issue
+     * @return the issue as a map
+     */
+    private static Map<String, String> raw(final String key) {
+        final Map<String, String> map = new HashMap<>();
+        map.put("key", key);
+        return map;
+    }
+
+    /**
+     * Give the keys of issues
+     * @param issues issues to browse
+     * @return their keys in the same order
+     */
+    private static List<String> keys(final List<Issue> issues) {
+        final List<String> keys = new ArrayList<>();
+        for(Issue issue : issues) {
+            keys.add(issue.getKey());
+        }
+        return keys;
+    }
+}
@@ -18,6 +18,7 @@ package fr.cnes.sonar.tests;/*
 import fr.cnes.sonar.report.utils.StringManager;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.MissingResourceException;
 
 import static org.junit.Assert.assertEquals;
@@ -63,4 +64,17 @@ public class StringManagerTest {
         StringManager.string(NOT_EXIST);
     }
 
+    /**
+     * Assert that an error is always described, even without message
+     */
+    @Test
+    public void describeErrorTest() {
+        assertEquals("refused", StringManager.describe(new IOException("refused")));
+        assertEquals("java.lang.NullPointerException",
+                StringManager.describe(new NullPointerException()));
+        final IOException wrapper = new IOException((String) null);
+        wrapper.initCause(new IllegalStateException("cause"));
+        assertEquals("cause", StringManager.describe(wrapper));
+    }
+
 }